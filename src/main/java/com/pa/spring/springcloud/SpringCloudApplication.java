@@ -1,12 +1,161 @@
 package com.pa.spring.springcloud;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.pa.spring.springcloud.controller.BoundedJettyPools;
+import com.pa.spring.springcloud.controller.VirtualThreadPool;
+import com.pa.spring.springcloud.repository.ReplicaRoutingDataSource;
+import com.pa.spring.springcloud.service.ConsultantImporter;
+import com.pa.spring.springcloud.service.ImportFormat;
+import com.pa.spring.springcloud.service.SyntheticDataGenerator;
+import com.pa.spring.springcloud.service.SyntheticDataSpec;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
 
 @SpringBootApplication
 public class SpringCloudApplication {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpringCloudApplication.class);
 
     public static void main(String[] args) {
         SpringApplication.run(SpringCloudApplication.class, args);
     }
-}
\ No newline at end of file
+
+    // Imports consultants at startup, e.g. --import.file=consultants.csv --spring.main.web-application-type=none
+    @Bean
+    @ConditionalOnProperty("import.file")
+    public CommandLineRunner consultantImportRunner(ConsultantImporter consultantImporter,
+                                                    @Value("${import.file}") String file) {
+        return args -> {
+            try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(Paths.get(file)))) {
+                LOGGER.info("Imported {}: {}", file, consultantImporter.importFrom(inputStream, ImportFormat.forFile(file)));
+            }
+        };
+    }
+
+    @Bean
+    @Profile("synthetic")
+    @ConfigurationProperties("synthetic")
+    public SyntheticDataSpec syntheticDataSpec() {
+        return new SyntheticDataSpec();
+    }
+
+    // Fills the tables with a generated dataset at startup, before the skill index and name resolver are loaded
+    @Bean
+    @Profile("synthetic")
+    public ApplicationRunner syntheticDataRunner(SyntheticDataGenerator syntheticDataGenerator, SyntheticDataSpec spec) {
+        return args -> syntheticDataGenerator.generate(spec);
+    }
+
+    // The training run of the appcds build: serves a first request of each kind, so the classes they load are archived
+    // along with those loaded at startup, then exits
+    @Bean
+    @ConditionalOnProperty("cds.training")
+    public ApplicationRunner cdsTrainingRunner(ConfigurableApplicationContext context,
+                                               @Value("${local.server.port}") int port) {
+        return args -> {
+            for (String path : new String[]{"/skills", "/consultants?limit=1", "/consultants?skills=Java"}) {
+                final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+                LOGGER.info("Training request {} answered with {}", path, connection.getResponseCode());
+                connection.disconnect();
+            }
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+
+    // Set by the lowmem profile
+    @Bean
+    @ConditionalOnProperty("jetty.max-threads")
+    public BoundedJettyPools boundedJettyPools(@Value("${jetty.max-threads}") int maxThreads,
+                                               @Value("${jetty.min-threads:8}") int minThreads,
+                                               @Value("${jetty.output-buffer-size:32768}") int outputBufferSize,
+                                               @Value("${jetty.header-cache-size:512}") int headerCacheSize,
+                                               @Value("${jetty.buffer-pool.max-buffer-size:65536}") int maxPooledBufferSize,
+                                               @Value("${jetty.buffer-pool.max-buffers:-1}") int maxPooledBuffers) {
+        return new BoundedJettyPools(maxThreads, minThreads, outputBufferSize, headerCacheSize, maxPooledBufferSize,
+                maxPooledBuffers);
+    }
+
+    // Jackson keeps its parsing and writing buffers per thread, to reuse them. That suits a small, fixed pool of
+    // threads, but not one virtual thread per request, where they are never reused
+    @Bean
+    @ConditionalOnProperty("jackson.thread-local-buffer-recycling")
+    public Jackson2ObjectMapperBuilderCustomizer jacksonBufferRecycling(
+            @Value("${jackson.thread-local-buffer-recycling}") boolean threadLocalBufferRecycling) {
+        return builder -> builder.factory(new JsonFactory()
+                .configure(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING, threadLocalBufferRecycling));
+    }
+
+    // Opt-in through the virtual-threads profile; on a JVM without virtual threads Jetty keeps its platform threads
+    @Bean
+    @ConditionalOnProperty("virtual-threads.enabled")
+    public WebServerFactoryCustomizer<JettyServletWebServerFactory> virtualThreadPoolCustomizer(
+            @Value("${virtual-threads.max-threads:10000}") int maxThreads) {
+        return factory -> {
+            if (VirtualThreadPool.isSupported()) {
+                factory.setThreadPool(new VirtualThreadPool(maxThreads));
+                LOGGER.info("Serving requests on up to {} virtual threads", maxThreads);
+            } else {
+                LOGGER.warn("Virtual threads need Java 21 or later, so requests are served on platform threads");
+            }
+        };
+    }
+
+    // Set replica.datasource.url to send read-only transactions to a replica. Both pools take the
+    // spring.datasource.hikari settings, which replica.datasource.hikari overrides for the replica
+    @Bean
+    @ConditionalOnProperty("replica.datasource.url")
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                               ObjectProvider<MeterRegistry> meterRegistry,
+                                               @Value("${replica.max-lag:1s}") Duration maxLag) {
+        final Binder binder = Binder.get(environment);
+        final HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        final HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(environment.getProperty("replica.datasource.url"))
+                .username(environment.getProperty("replica.datasource.username", properties.determineUsername()))
+                .password(environment.getProperty("replica.datasource.password", properties.determinePassword()))
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        binder.bind("replica.datasource.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        // Boot only binds pool metrics for pools that are beans
+        meterRegistry.ifAvailable(registry -> {
+            primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        });
+        LOGGER.info("Routing read-only transactions to {}, or the primary within {} of a write", replica.getJdbcUrl(), maxLag);
+        return new ReplicaRoutingDataSource(primary, replica, maxLag);
+    }
+}
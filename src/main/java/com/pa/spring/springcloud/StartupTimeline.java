@@ -0,0 +1,81 @@
+package com.pa.spring.springcloud;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The steps the application took to start, timed from the start of the JVM, as served at /actuator/startup
+public class StartupTimeline {
+    private final long jvmStartNanos;
+    private final List<Step> steps = Collections.synchronizedList(new ArrayList<>());
+    private volatile double startedMillis = -1;
+
+    StartupTimeline() {
+        this.jvmStartNanos = System.nanoTime()
+                - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    void record(String name, long startNanos, long endNanos, Map<String, String> tags) {
+        steps.add(new Step(name, millis(startNanos), millis(endNanos) - millis(startNanos), tags));
+    }
+
+    void started(long nanos) {
+        startedMillis = millis(nanos);
+    }
+
+    long jvmStartNanos() {
+        return jvmStartNanos;
+    }
+
+    // Until the application has started, or -1 before then
+    public double getStartedMillis() {
+        return startedMillis;
+    }
+
+    public List<Step> getSteps() {
+        final List<Step> sorted;
+        synchronized (steps) {
+            sorted = new ArrayList<>(steps);
+        }
+        sorted.sort(Comparator.comparingDouble(Step::getStartMillis));
+        return sorted;
+    }
+
+    private double millis(long nanos) {
+        return Math.round((nanos - jvmStartNanos) / 10_000.0) / 100.0;
+    }
+
+    public static class Step {
+        private final String name;
+        private final double startMillis;
+        private final double durationMillis;
+        private final Map<String, String> tags;
+
+        Step(String name, double startMillis, double durationMillis, Map<String, String> tags) {
+            this.name = name;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+            this.tags = tags;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getStartMillis() {
+            return startMillis;
+        }
+
+        public double getDurationMillis() {
+            return durationMillis;
+        }
+
+        public Map<String, String> getTags() {
+            return tags;
+        }
+    }
+}
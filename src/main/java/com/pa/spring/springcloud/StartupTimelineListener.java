@@ -0,0 +1,197 @@
+package com.pa.spring.springcloud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringApplicationRunListener;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceSchemaCreatedEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Records the startup timeline, registered in META-INF/spring.factories so it sees the application from its first
+// step: each phase of SpringApplication.run, the creation of each bean taking a millisecond or more, data.sql and the
+// start of Jetty. With startup.timeline.file set, the timeline is also written there as JSON once the application runs
+public class StartupTimelineListener implements SpringApplicationRunListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTimelineListener.class);
+
+    private final StartupTimeline timeline = new StartupTimeline();
+    private long phaseStart;
+    private String timelineFile;
+
+    public StartupTimelineListener(SpringApplication application, String[] args) {
+    }
+
+    @Override
+    public void starting() {
+        phaseStart = end("jvm.start", timeline.jvmStartNanos());
+    }
+
+    @Override
+    public void environmentPrepared(ConfigurableEnvironment environment) {
+        phaseStart = end("environment.prepare", phaseStart);
+        timelineFile = environment.getProperty("startup.timeline.file", "");
+    }
+
+    @Override
+    public void contextPrepared(ConfigurableApplicationContext context) {
+        context.getBeanFactory().registerSingleton("startupTimeline", timeline);
+        final BeanTimer beanTimer = new BeanTimer(timeline);
+        if (context instanceof GenericApplicationContext) {
+            ((GenericApplicationContext) context).registerBean("startupBeanTimer", BeanTimer.class, () -> beanTimer);
+        }
+        context.addApplicationListener(beanTimer);
+    }
+
+    @Override
+    public void contextLoaded(ConfigurableApplicationContext context) {
+        phaseStart = end("context.prepare", phaseStart);
+    }
+
+    @Override
+    public void started(ConfigurableApplicationContext context) {
+        phaseStart = end("context.refresh", phaseStart);
+    }
+
+    @Override
+    public void running(ConfigurableApplicationContext context) {
+        final long now = end("runners", phaseStart);
+        timeline.started(now);
+        LOGGER.info("Started {} ms after the JVM", Math.round(timeline.getStartedMillis()));
+        if (!timelineFile.isEmpty()) {
+            try {
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(timelineFile), timeline);
+                LOGGER.info("Startup timeline written to {}", timelineFile);
+            } catch (IOException e) {
+                LOGGER.warn("Could not write the startup timeline to {}", timelineFile, e);
+            }
+        }
+    }
+
+    @Override
+    public void failed(ConfigurableApplicationContext context, Throwable exception) {
+    }
+
+    private long end(String phase, long start) {
+        final long now = System.nanoTime();
+        timeline.record(phase, start, now, Collections.emptyMap());
+        return now;
+    }
+
+    // Times each bean created during the refresh, from instantiation to initialisation, less the beans created while it
+    // was, so the time is its own. As a MergedBeanDefinitionPostProcessor it runs after the other post processors, so
+    // that includes their work, except data.sql, run once the EntityManagerFactory is ready, which is a step of its own.
+    // Lazy beans created later, on request threads, are not timed
+    static final class BeanTimer implements InstantiationAwareBeanPostProcessor, MergedBeanDefinitionPostProcessor,
+            SmartApplicationListener {
+        private static final long MIN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final StartupTimeline timeline;
+        private final Deque<Creation> creations = new ArrayDeque<>();
+        private long dataScriptsStart;
+        private volatile long refreshed;
+
+        BeanTimer(StartupTimeline timeline) {
+            this.timeline = timeline;
+        }
+
+        @Override
+        public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+            if (refreshed == 0) {
+                creations.push(new Creation(beanName, beanClass, System.nanoTime()));
+            }
+            return null;
+        }
+
+        @Override
+        public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            // Objects made by factory beans are post processed without having been instantiated here, and beans that
+            // failed to be created are never post processed, so are dropped once one created before them finishes
+            if (refreshed != 0 || creations.stream().noneMatch(creation -> creation.name.equals(beanName))) {
+                return bean;
+            }
+            Creation creation = creations.pop();
+            while (!creation.name.equals(beanName)) {
+                creation = creations.pop();
+            }
+            final long now = System.nanoTime();
+            long nested = creation.nested;
+            if (dataScriptsStart != 0) {
+                timeline.record("data.sql", dataScriptsStart, now, Collections.emptyMap());
+                nested += now - dataScriptsStart;
+                dataScriptsStart = 0;
+            }
+            final long total = now - creation.start;
+            if (!creations.isEmpty()) {
+                creations.peek().nested += total;
+            }
+            if (total - nested >= MIN_NANOS) {
+                final Map<String, String> tags = new LinkedHashMap<>();
+                tags.put("type", creation.type.getName());
+                tags.put("totalMillis", Double.toString(TimeUnit.NANOSECONDS.toMicros(total) / 1000.0));
+                timeline.record("bean." + beanName, creation.start, creation.start + total - nested, tags);
+            }
+            return bean;
+        }
+
+        @Override
+        public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+            return DataSourceSchemaCreatedEvent.class.isAssignableFrom(eventType)
+                    || ContextRefreshedEvent.class.isAssignableFrom(eventType)
+                    || WebServerInitializedEvent.class.isAssignableFrom(eventType);
+        }
+
+        // Ahead of the listener that runs data.sql
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void onApplicationEvent(ApplicationEvent event) {
+            if (event instanceof DataSourceSchemaCreatedEvent) {
+                dataScriptsStart = System.nanoTime();
+            } else if (event instanceof ContextRefreshedEvent) {
+                refreshed = System.nanoTime();
+            } else if (refreshed != 0) {
+                timeline.record("web-server.start", refreshed, System.nanoTime(), Collections.emptyMap());
+            }
+        }
+
+        private static final class Creation {
+            private final String name;
+            private final Class<?> type;
+            private final long start;
+            private long nested;
+
+            Creation(String name, Class<?> type, long start) {
+                this.name = name;
+                this.type = type;
+                this.start = start;
+            }
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.pa.spring.springcloud.controller;
 
 import com.pa.spring.springcloud.model.Assignment;
 import com.pa.spring.springcloud.service.AssignmentService;
+import com.pa.spring.springcloud.service.BatchItemResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/assignments")
@@ -20,13 +23,21 @@ public class AssignmentController {
     }
 
     @GetMapping
-    public ResponseEntity<Iterable> findAll() {
-        return ResponseEntity.ok(assignmentService.findAll());
+    public ResponseEntity<List<Assignment>> findAll(@RequestParam(name = "after", defaultValue = KeysetPage.DEFAULT_AFTER) long after,
+                                                    @RequestParam(name = "limit", defaultValue = KeysetPage.DEFAULT_LIMIT) int limit,
+                                                    WebRequest request) {
+        if (request.checkNotModified(assignmentService.tableVersion())) {
+            return null;
+        }
+        final int pageLimit = KeysetPage.limit(limit);
+        return KeysetPage.of(assignmentService.findAll(after, pageLimit), pageLimit, Assignment::getId);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Assignment> findById(@PathVariable Long id) {
-        return ResponseEntity.of(assignmentService.findById(id));
+        return assignmentService.findById(id)
+                .map(assignment -> ResponseEntity.ok().eTag(ETags.of(assignment)).body(assignment))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping
@@ -35,4 +46,9 @@ public class AssignmentController {
         return ResponseEntity.created(URI.create("/assignments/" + savedAssignment.getId()))
                 .body(savedAssignment);
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createBatch(@RequestBody List<Assignment> assignments) {
+        return ResponseEntity.ok(assignmentService.saveAll(assignments));
+    }
 }
\ No newline at end of file
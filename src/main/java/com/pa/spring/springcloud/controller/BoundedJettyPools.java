@@ -0,0 +1,69 @@
+package com.pa.spring.springcloud.controller;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+
+// Caps what Jetty holds on to: its threads, the buffer each response is written through, the header fields each
+// connection caches, and the buffers it pools for reuse. Spring Boot 2.1 has no properties for these, and the connector takes its buffer pool when it is created, so
+// the connector Spring Boot made is replaced by one like it with a bounded pool
+public class BoundedJettyPools implements WebServerFactoryCustomizer<JettyServletWebServerFactory> {
+    private final int maxThreads;
+    private final int minThreads;
+    private final int outputBufferSize;
+    private final int headerCacheSize;
+    private final int maxPooledBufferSize;
+    private final int maxPooledBuffers;
+
+    public BoundedJettyPools(int maxThreads, int minThreads, int outputBufferSize, int headerCacheSize,
+                             int maxPooledBufferSize, int maxPooledBuffers) {
+        this.maxThreads = maxThreads;
+        this.minThreads = minThreads;
+        this.outputBufferSize = outputBufferSize;
+        this.headerCacheSize = headerCacheSize;
+        this.maxPooledBufferSize = maxPooledBufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    @Override
+    public void customize(JettyServletWebServerFactory factory) {
+        factory.setThreadPool(new QueuedThreadPool(maxThreads, minThreads));
+        factory.addServerCustomizers(this::replaceConnectors);
+    }
+
+    private void replaceConnectors(Server server) {
+        final Connector[] connectors = server.getConnectors();
+        for (int index = 0; index < connectors.length; index++) {
+            if (connectors[index] instanceof ServerConnector) {
+                connectors[index] = bounded(server, (ServerConnector) connectors[index]);
+            }
+        }
+        server.setConnectors(connectors);
+    }
+
+    // Buffers up to the max size are pooled, at most the max number of each size; larger ones are not kept
+    private ServerConnector bounded(Server server, ServerConnector connector) {
+        final ConnectionFactory[] connectionFactories = connector.getConnectionFactories().toArray(new ConnectionFactory[0]);
+        for (ConnectionFactory connectionFactory : connectionFactories) {
+            if (connectionFactory instanceof HttpConnectionFactory) {
+                final HttpConfiguration configuration = ((HttpConnectionFactory) connectionFactory).getHttpConfiguration();
+                configuration.setOutputBufferSize(outputBufferSize);
+                configuration.setHeaderCacheSize(headerCacheSize);
+            }
+        }
+        final ServerConnector bounded = new ServerConnector(server, null, null,
+                new ArrayByteBufferPool(0, 1024, maxPooledBufferSize, maxPooledBuffers),
+                connector.getAcceptors(), connector.getSelectorManager().getSelectorCount(), connectionFactories);
+        bounded.setHost(connector.getHost());
+        bounded.setPort(connector.getPort());
+        bounded.setIdleTimeout(connector.getIdleTimeout());
+        return bounded;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pa.spring.springcloud.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Limits how many requests of one class run, and wait to run, at once, so a flood of one class is refused with a 503
+// instead of taking the threads and connections the others need. Each reports bulkhead.active, bulkhead.queued and
+// bulkhead.rejected, tagged with its name
+abstract class Bulkhead {
+    private final String name;
+    private final Counter full;
+    private final Counter timedOut;
+
+    Bulkhead(String name, MeterRegistry meterRegistry) {
+        this.name = name;
+        Gauge.builder("bulkhead.active", this, Bulkhead::active).tag("name", name).register(meterRegistry);
+        Gauge.builder("bulkhead.queued", this, Bulkhead::queued).tag("name", name).register(meterRegistry);
+        this.full = Counter.builder("bulkhead.rejected").tag("name", name).tag("reason", "full").register(meterRegistry);
+        this.timedOut = Counter.builder("bulkhead.rejected").tag("name", name).tag("reason", "timeout").register(meterRegistry);
+    }
+
+    // How many run at once, and how many more may wait to
+    abstract int concurrency();
+
+    abstract int queue();
+
+    abstract int active();
+
+    abstract int queued();
+
+    ResponseStatusException full() {
+        full.increment();
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many " + name + " requests waiting");
+    }
+
+    ResponseStatusException timedOut() {
+        timedOut.increment();
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The " + name + " request timed out");
+    }
+}
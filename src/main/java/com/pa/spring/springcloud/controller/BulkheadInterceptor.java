@@ -0,0 +1,73 @@
+package com.pa.spring.springcloud.controller;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CompletionStage;
+
+// Holds a permit from the read or write bulkhead while a CRUD request runs. Handlers that return asynchronously are
+// left alone, as they already run on a bulkhead or scheduler of their own
+@Component
+class BulkheadInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+    private static final String PERMIT = BulkheadInterceptor.class.getName() + ".PERMIT";
+
+    private final Bulkheads bulkheads;
+
+    @Autowired
+    BulkheadInterceptor(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod)
+                || isAsynchronous((HandlerMethod) handler)) {
+            return true;
+        }
+        final HttpMethod method = HttpMethod.resolve(request.getMethod());
+        final SemaphoreBulkhead bulkhead = method == HttpMethod.GET || method == HttpMethod.HEAD
+                ? bulkheads.read() : bulkheads.write();
+        bulkhead.acquire();
+        request.setAttribute(PERMIT, bulkhead);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private static void release(HttpServletRequest request) {
+        final Object bulkhead = request.getAttribute(PERMIT);
+        if (bulkhead != null) {
+            request.removeAttribute(PERMIT);
+            ((SemaphoreBulkhead) bulkhead).release();
+        }
+    }
+
+    private static boolean isAsynchronous(HandlerMethod handler) {
+        final Class<?> returnType = handler.getMethod().getReturnType();
+        return DeferredResult.class.isAssignableFrom(returnType) || CompletionStage.class.isAssignableFrom(returnType)
+                || Publisher.class.isAssignableFrom(returnType);
+    }
+}
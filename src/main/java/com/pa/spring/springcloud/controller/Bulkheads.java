@@ -0,0 +1,65 @@
+package com.pa.spring.springcloud.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+// Searches and exports run on pools of their own; CRUD reads and writes each have their own limit, on the Jetty thread.
+// Each is configured by bulkhead.<name>.threads (or concurrency), queue and timeout
+@Component
+class Bulkheads {
+    private final ExecutorBulkhead search;
+    private final ExecutorBulkhead export;
+    private final SemaphoreBulkhead read;
+    private final SemaphoreBulkhead write;
+
+    @Autowired
+    Bulkheads(MeterRegistry meterRegistry, Environment environment) {
+        this.search = new ExecutorBulkhead("search", property(environment, "search.threads", 4),
+                property(environment, "search.queue", 100), timeout(environment, "search", Duration.ofSeconds(10)),
+                meterRegistry);
+        this.export = new ExecutorBulkhead("export", property(environment, "export.threads", 2),
+                property(environment, "export.queue", 2), timeout(environment, "export", Duration.ofMinutes(30)),
+                meterRegistry);
+        this.read = new SemaphoreBulkhead("read", property(environment, "read.concurrency", 50),
+                property(environment, "read.queue", 50), timeout(environment, "read", Duration.ofSeconds(1)),
+                meterRegistry);
+        this.write = new SemaphoreBulkhead("write", property(environment, "write.concurrency", 10),
+                property(environment, "write.queue", 20), timeout(environment, "write", Duration.ofSeconds(2)),
+                meterRegistry);
+    }
+
+    ExecutorBulkhead search() {
+        return search;
+    }
+
+    ExecutorBulkhead export() {
+        return export;
+    }
+
+    SemaphoreBulkhead read() {
+        return read;
+    }
+
+    SemaphoreBulkhead write() {
+        return write;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        search.shutdown();
+        export.shutdown();
+    }
+
+    private static int property(Environment environment, String name, int defaultValue) {
+        return environment.getProperty("bulkhead." + name, Integer.class, defaultValue);
+    }
+
+    private static Duration timeout(Environment environment, String bulkhead, Duration defaultValue) {
+        return environment.getProperty("bulkhead." + bulkhead + ".timeout", Duration.class, defaultValue);
+    }
+}
@@ -0,0 +1,219 @@
+package com.pa.spring.springcloud.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Limits the requests in flight for each group of routes to a limit that adapts to their latency, answering the rest
+// at once with a 503 and Retry-After. Each adaptive limit starts at what its bulkhead can run and hold waiting, and
+// never falls below what it runs at once, so it sheds no more than the bulkhead would until latency shows it must.
+// Streamed searches and exports are in flight for as long as the client takes to read them, which says nothing of the
+// server's latency, so their limits are fixed. Reports concurrency.limit, concurrency.in-flight, concurrency.rejected
+// and concurrency.rtt by group. The actuator is left out, so the metrics can still be scraped while requests are shed
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final String PERMIT = ConcurrencyLimitFilter.class.getName() + ".PERMIT";
+
+    private final boolean enabled;
+    private final String retryAfter;
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Autowired
+    ConcurrencyLimitFilter(MeterRegistry meterRegistry, Bulkheads bulkheads,
+                           @Value("${concurrency-limit.enabled:true}") boolean enabled,
+                           @Value("${concurrency-limit.max-limit:200}") int maxLimit,
+                           @Value("${concurrency-limit.smoothing:0.2}") double smoothing,
+                           @Value("${concurrency-limit.stream-limit:16}") int streamLimit,
+                           @Value("${concurrency-limit.retry-after:1s}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.getSeconds()));
+        add(new Group("search", adaptive(bulkheads.search(), maxLimit, smoothing), true, meterRegistry));
+        add(new Group("stream", GradientLimit.fixed(Math.min(streamLimit, maxLimit)), false, meterRegistry));
+        add(new Group("export", GradientLimit.fixed(Math.min(capacity(bulkheads.export()), maxLimit)), false,
+                meterRegistry));
+        add(new Group("read", adaptive(bulkheads.read(), maxLimit, smoothing), true, meterRegistry));
+        add(new Group("write", adaptive(bulkheads.write(), maxLimit, smoothing), true, meterRegistry));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    // Async requests hold their permit until the dispatch that writes their result, so that has to pass through too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                final Permit permit = (Permit) request.getAttribute(PERMIT);
+                if (permit != null) {
+                    release(request, permit);
+                }
+            }
+            return;
+        }
+        final Group group = groups.get(group(request));
+        final Permit permit = group.tryAcquire();
+        if (permit == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many " + group.name + " requests in flight");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            request.setAttribute(PERMIT, permit);
+            release(request, permit);
+        }
+    }
+
+    // An export starts async again from its dispatch, to stream the body it was handed, and the listeners of one async
+    // cycle are not carried over to the next, so the permit listens to each
+    private static void release(HttpServletRequest request, Permit permit) {
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(permit);
+        } else {
+            permit.release();
+        }
+    }
+
+    // The same classes of request as the bulkheads, with streamed searches apart, told apart before a handler has been
+    // chosen
+    private static String group(HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        final boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        if (!read) {
+            return "write";
+        }
+        if (path.startsWith("/consultants/export")) {
+            return "export";
+        }
+        if (path.startsWith("/consultants/stream")) {
+            return "stream";
+        }
+        if (path.startsWith("/consultants") && request.getParameter("skills") != null) {
+            return "search";
+        }
+        return "read";
+    }
+
+    private void add(Group group) {
+        groups.put(group.name, group);
+    }
+
+    private static GradientLimit adaptive(Bulkhead bulkhead, int maxLimit, double smoothing) {
+        final int minLimit = Math.min(bulkhead.concurrency(), maxLimit);
+        return new GradientLimit(Math.min(capacity(bulkhead), maxLimit), minLimit, maxLimit, smoothing);
+    }
+
+    private static int capacity(Bulkhead bulkhead) {
+        return bulkhead.concurrency() + bulkhead.queue();
+    }
+
+    private static final class Group {
+        private final String name;
+        private final GradientLimit limit;
+        private final Counter rejected;
+        private final Timer rtt;
+
+        // Only an adaptive group samples round trip times, so only its limit moves
+        Group(String name, GradientLimit limit, boolean adaptive, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.limit = limit;
+            Gauge.builder("concurrency.limit", limit, GradientLimit::limit).tag("group", name).register(meterRegistry);
+            Gauge.builder("concurrency.in-flight", limit, GradientLimit::inFlight).tag("group", name).register(meterRegistry);
+            this.rejected = Counter.builder("concurrency.rejected").tag("group", name).register(meterRegistry);
+            if (adaptive) {
+                Gauge.builder("concurrency.rtt.long-term", limit, GradientLimit::longRttMillis).tag("group", name)
+                        .baseUnit("milliseconds").register(meterRegistry);
+                this.rtt = Timer.builder("concurrency.rtt").tag("group", name).register(meterRegistry);
+            } else {
+                this.rtt = null;
+            }
+        }
+
+        Permit tryAcquire() {
+            if (!limit.tryAcquire()) {
+                rejected.increment();
+                return null;
+            }
+            return new Permit(this, limit.inFlight());
+        }
+    }
+
+    // Released once, by whichever of the final dispatch and the async listener sees the request finish first
+    private static final class Permit implements AsyncListener {
+        private final Group group;
+        private final int admittedInFlight;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Group group, int admittedInFlight) {
+            this.group = group;
+            this.admittedInFlight = admittedInFlight;
+        }
+
+        void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (group.rtt == null) {
+                group.limit.release();
+                return;
+            }
+            final long rttNanos = System.nanoTime() - start;
+            group.rtt.record(rttNanos, TimeUnit.NANOSECONDS);
+            group.limit.release(rttNanos, admittedInFlight);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -1,13 +1,31 @@
 package com.pa.spring.springcloud.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pa.spring.springcloud.model.Consultant;
 import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.service.BatchItemResult;
+import com.pa.spring.springcloud.service.ConsultantImporter;
+import com.pa.spring.springcloud.service.ConsultantSearchStream;
 import com.pa.spring.springcloud.service.ConsultantService;
+import com.pa.spring.springcloud.service.ImportFormat;
+import com.pa.spring.springcloud.service.ImportReport;
+import com.pa.spring.springcloud.service.SkillMatch;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
@@ -16,30 +34,87 @@ import java.util.Optional;
 @RequestMapping("/consultants")
 public class ConsultantController {
     private final ConsultantService consultantService;
+    private final ConsultantImporter consultantImporter;
+    private final ConsultantSearchStream consultantSearchStream;
+    private final ObjectMapper objectMapper;
+    private final Bulkheads bulkheads;
 
     @Autowired
-    public ConsultantController(ConsultantService consultantService) {
+    public ConsultantController(ConsultantService consultantService, @Lazy ConsultantImporter consultantImporter,
+                                @Lazy ConsultantSearchStream consultantSearchStream, ObjectMapper objectMapper,
+                                Bulkheads bulkheads) {
         this.consultantService = consultantService;
+        this.consultantImporter = consultantImporter;
+        this.consultantSearchStream = consultantSearchStream;
+        this.objectMapper = objectMapper;
+        this.bulkheads = bulkheads;
     }
 
     @GetMapping
-    public ResponseEntity<Iterable> findAll() {
-        return ResponseEntity.ok(consultantService.findAll());
+    public ResponseEntity<List<Consultant>> findAll(@RequestParam(name = "after", defaultValue = KeysetPage.DEFAULT_AFTER) long after,
+                                                    @RequestParam(name = "limit", defaultValue = KeysetPage.DEFAULT_LIMIT) int limit,
+                                                    WebRequest request) {
+        if (request.checkNotModified(consultantService.tableVersion())) {
+            return null;
+        }
+        final int pageLimit = KeysetPage.limit(limit);
+        return KeysetPage.of(consultantService.findAll(after, pageLimit), pageLimit, Consultant::getId);
+    }
+
+    // Written by the export bulkhead as the consultants are read
+    @GetMapping("/export")
+    public DeferredResult<ResponseEntity<ResponseBodyEmitter>> export(@RequestParam(name = "format", defaultValue = "ndjson") ExportFormat format) {
+        return bulkheads.export().stream(MediaType.parseMediaType(format.getContentType()), outputStream -> {
+            try (ConsultantExportWriter writer = new ConsultantExportWriter(format, objectMapper, outputStream)) {
+                consultantService.exportAll(writer::write);
+            }
+        });
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Consultant> findById(@PathVariable Long id) {
-        return ResponseEntity.of(consultantService.findById(id));
+        return consultantService.findById(id)
+                .map(consultant -> ResponseEntity.ok().eTag(ETags.of(consultant)).body(consultant))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Searches run on the search bulkhead, so a burst of them queues there rather than holding Jetty threads
     @GetMapping(params = "skills")
-    public ResponseEntity<List> findConsultantsWithSkill(@RequestParam(name = "skills") String skills) {
-        return ResponseEntity.ok(consultantService.findConsultantsWithSkills(skills));
+    public DeferredResult<ResponseEntity<List<Consultant>>> findConsultantsWithSkill(@RequestParam(name = "skills") String skills,
+                                                                                     @RequestParam(name = "match", defaultValue = "any") SkillMatch match,
+                                                                                     @RequestParam(name = "after", defaultValue = KeysetPage.DEFAULT_AFTER) long after,
+                                                                                     @RequestParam(name = "limit", defaultValue = KeysetPage.DEFAULT_LIMIT) int limit) {
+        final int pageLimit = KeysetPage.limit(limit);
+        final UriComponentsBuilder current = ServletUriComponentsBuilder.fromCurrentRequest();
+        return bulkheads.search().submit(() -> KeysetPage.of(
+                consultantService.findConsultantsWithSkills(skills, match, after, pageLimit),
+                pageLimit, Consultant::getId, current));
     }
 
     @GetMapping(params = {"skills", "available"})
-    public ResponseEntity<List> findAvailableConsultantsWithSkill(@RequestParam(name = "skills") String skills) {
-        return ResponseEntity.ok(consultantService.findAvailableConsultantsWithSkills(skills));
+    public DeferredResult<ResponseEntity<List<Consultant>>> findAvailableConsultantsWithSkill(@RequestParam(name = "skills") String skills,
+                                                                                              @RequestParam(name = "match", defaultValue = "any") SkillMatch match,
+                                                                                              @RequestParam(name = "after", defaultValue = KeysetPage.DEFAULT_AFTER) long after,
+                                                                                              @RequestParam(name = "limit", defaultValue = KeysetPage.DEFAULT_LIMIT) int limit) {
+        final int pageLimit = KeysetPage.limit(limit);
+        final UriComponentsBuilder current = ServletUriComponentsBuilder.fromCurrentRequest();
+        return bulkheads.search().submit(() -> KeysetPage.of(
+                consultantService.findAvailableConsultantsWithSkills(skills, match, after, pageLimit),
+                pageLimit, Consultant::getId, current));
+    }
+
+    // Every match rather than a page, written as newline delimited JSON as the client reads it; the request thread is
+    // released as soon as the stream starts
+    @GetMapping(path = "/stream", params = "skills", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<Consultant> streamConsultantsWithSkill(@RequestParam(name = "skills") String skills,
+                                                       @RequestParam(name = "match", defaultValue = "any") SkillMatch match) {
+        return consultantSearchStream.findConsultantsWithSkills(skills, match, false);
+    }
+
+    @GetMapping(path = "/stream", params = {"skills", "available"}, produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<Consultant> streamAvailableConsultantsWithSkill(@RequestParam(name = "skills") String skills,
+                                                                @RequestParam(name = "match", defaultValue = "any") SkillMatch match) {
+        return consultantSearchStream.findConsultantsWithSkills(skills, match, true);
     }
 
     @PostMapping
@@ -49,6 +124,21 @@ public class ConsultantController {
                 .body(savedConsultant);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createBatch(@RequestBody List<Consultant> consultants) {
+        return ResponseEntity.ok(consultantService.saveAll(consultants));
+    }
+
+    // The format defaults to the one the uploaded file is named for
+    @PostMapping(path = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportReport> importFile(@RequestParam("file") MultipartFile file,
+                                                   @RequestParam(name = "format", required = false) ImportFormat format) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return ResponseEntity.ok(consultantImporter.importFrom(inputStream,
+                    format == null ? ImportFormat.forFile(file.getOriginalFilename()) : format));
+        }
+    }
+
     @GetMapping("/{id}/skills")
     public ResponseEntity<List<Skill>> findSkillsById(@PathVariable Long id) {
         final Optional<Consultant> consultant = consultantService.findById(id);
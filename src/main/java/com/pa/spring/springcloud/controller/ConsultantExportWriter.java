@@ -0,0 +1,78 @@
+package com.pa.spring.springcloud.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Collectors;
+
+final class ConsultantExportWriter implements Closeable {
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("fullName")
+            .addColumn("email")
+            .addColumn("assignment")
+            .addColumn("skills")
+            .setUseHeader(true)
+            .build();
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final ExportFormat format;
+    private final JsonGenerator generator;
+    private final ObjectWriter jsonWriter;
+
+    ConsultantExportWriter(ExportFormat format, ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        this.format = format;
+        if (format == ExportFormat.CSV) {
+            final CsvGenerator csvGenerator = CSV_MAPPER.getFactory().createGenerator(outputStream);
+            csvGenerator.setSchema(CSV_SCHEMA);
+            this.generator = csvGenerator;
+        } else {
+            this.generator = objectMapper.getFactory().createGenerator(outputStream);
+            this.generator.setRootValueSeparator(null);
+        }
+        this.jsonWriter = objectMapper.writerFor(Consultant.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    void write(Consultant consultant) {
+        try {
+            if (format == ExportFormat.CSV) {
+                writeCsvRow(consultant);
+            } else {
+                jsonWriter.writeValue(generator, consultant);
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvRow(Consultant consultant) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", consultant.getId());
+        generator.writeStringField("fullName", consultant.getFullName());
+        generator.writeStringField("email", consultant.getEmail());
+        generator.writeStringField("assignment",
+                consultant.getAssignment() == null ? null : consultant.getAssignment().getName());
+        generator.writeStringField("skills", consultant.getSkills().stream()
+                .map(Skill::getName)
+                .collect(Collectors.joining(";")));
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
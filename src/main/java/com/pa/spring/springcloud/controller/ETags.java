@@ -0,0 +1,35 @@
+package com.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+
+import java.util.Arrays;
+
+final class ETags {
+    private ETags() {
+    }
+
+    static String of(Skill skill) {
+        return skill.getId() + "-" + skill.getVersion();
+    }
+
+    static String of(Assignment assignment) {
+        return assignment.getId() + "-" + assignment.getVersion();
+    }
+
+    // Versions only ever increase, so summing those of the skills still changes whenever one of them does
+    static String of(Consultant consultant) {
+        return consultant.getId() + "-" + consultant.getVersion()
+                + "." + (consultant.getAssignment() == null ? 0 : consultant.getAssignment().getVersion())
+                + "." + consultant.getSkills().stream().mapToLong(Skill::getVersion).sum();
+    }
+
+    // If-Match uses the strong comparison, so weak tags never match
+    static boolean matches(String ifMatch, String eTag) {
+        final String quoted = "\"" + eTag + "\"";
+        return Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(quoted));
+    }
+}
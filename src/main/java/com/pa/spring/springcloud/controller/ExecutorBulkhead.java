@@ -0,0 +1,170 @@
+package com.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.repository.QueryStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Runs a class of request on threads of its own, releasing the Jetty thread while it waits and runs
+final class ExecutorBulkhead extends Bulkhead {
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    private final ThreadPoolExecutor executor;
+    private final int queue;
+    private final long timeoutMillis;
+
+    ExecutorBulkhead(String name, int threads, int queue, Duration timeout, MeterRegistry meterRegistry) {
+        super(name, meterRegistry);
+        final BlockingQueue<Runnable> workQueue = queue > 0 ? new ArrayBlockingQueue<>(queue) : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, workQueue,
+                new CustomizableThreadFactory("bulkhead-" + name + "-"));
+        this.queue = queue;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    // Work not finished by the timeout gets a 503, and if it is still queued by then it is skipped rather than run
+    <T> DeferredResult<T> submit(Callable<T> work) {
+        final DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+        result.onTimeout(() -> result.setErrorResult(timedOut()));
+        execute(() -> {
+            if (result.isSetOrExpired()) {
+                return;
+            }
+            try {
+                result.setResult(work.call());
+            } catch (Exception e) {
+                result.setErrorResult(e);
+            }
+        });
+        return result;
+    }
+
+    // Writes the body on the pool, handing it to the container a buffer at a time. The response only starts with the
+    // first full buffer, so a failure before then is returned like any other error and gets its status; one after
+    // that ends the response early
+    DeferredResult<ResponseEntity<ResponseBodyEmitter>> stream(MediaType contentType, StreamingResponseBody body) {
+        final DeferredResult<ResponseEntity<ResponseBodyEmitter>> result = new DeferredResult<>(timeoutMillis);
+        result.onTimeout(() -> result.setErrorResult(timedOut()));
+        execute(() -> {
+            if (result.isSetOrExpired()) {
+                return;
+            }
+            final EmitterOutputStream emitterOutputStream = new EmitterOutputStream(result, contentType, timeoutMillis);
+            try (OutputStream outputStream = new BufferedOutputStream(emitterOutputStream, BUFFER_SIZE)) {
+                body.writeTo(outputStream);
+            } catch (Exception e) {
+                emitterOutputStream.fail(e);
+                return;
+            }
+            emitterOutputStream.complete();
+        });
+        return result;
+    }
+
+    // The request's query statistics go with the work, as its statements run on the pool
+    private void execute(Runnable work) {
+        final QueryStatistics statistics = QueryStatistics.current();
+        try {
+            executor.execute(() -> {
+                final QueryStatistics previous = QueryStatistics.bind(statistics);
+                try {
+                    work.run();
+                } finally {
+                    QueryStatistics.bind(previous);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw full();
+        }
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    int concurrency() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @Override
+    int queue() {
+        return queue;
+    }
+
+    @Override
+    int active() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    int queued() {
+        return executor.getQueue().size();
+    }
+
+    // Starts the response on the first write. Each write is a copy, as the emitter holds on to what it is sent until
+    // the response has been handed to it
+    private static final class EmitterOutputStream extends OutputStream {
+        private final DeferredResult<ResponseEntity<ResponseBodyEmitter>> result;
+        private final ResponseBodyEmitter emitter;
+        private final MediaType contentType;
+        private boolean started;
+
+        EmitterOutputStream(DeferredResult<ResponseEntity<ResponseBodyEmitter>> result, MediaType contentType,
+                            long timeoutMillis) {
+            this.result = result;
+            this.emitter = new ResponseBodyEmitter(timeoutMillis);
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                start();
+                emitter.send(Arrays.copyOfRange(b, off, off + len));
+            }
+        }
+
+        void complete() {
+            start();
+            emitter.complete();
+        }
+
+        void fail(Exception e) {
+            if (started) {
+                emitter.completeWithError(e);
+            } else {
+                result.setErrorResult(e);
+            }
+        }
+
+        private void start() {
+            if (!started) {
+                started = true;
+                result.setResult(ResponseEntity.ok().contentType(contentType).body(emitter));
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.pa.spring.springcloud.controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A concurrency limit that follows measured latency: while requests take about as long as they have on average the
+// limit grows by a small allowance for queueing, and as they slow down it shrinks in proportion, so requests are
+// refused up front instead of queueing inside Jetty. After the gradient algorithm of Netflix's concurrency-limits
+final class GradientLimit {
+    // Samples averaged into the long term round trip time, and the tolerance before a slow down shrinks the limit
+    private static final int LONG_WINDOW = 600;
+    private static final double RTT_TOLERANCE = 1.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double estimatedLimit;
+    private double longRttNanos;
+    private volatile int limit;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    boolean tryAcquire() {
+        for (int current = inFlight.get(); current < limit; current = inFlight.get()) {
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A limit that never moves, for requests whose time in flight is not the server's to shorten
+    static GradientLimit fixed(int limit) {
+        return new GradientLimit(limit, limit, limit, 0);
+    }
+
+    // Called once for each acquired request, with the in flight count it was admitted at
+    void release(long rttNanos, int admittedInFlight) {
+        inFlight.decrementAndGet();
+        update(rttNanos, admittedInFlight);
+    }
+
+    // Called instead for a request whose round trip time says nothing of the server's latency
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    synchronized double longRttMillis() {
+        return longRttNanos / 1_000_000;
+    }
+
+    private synchronized void update(long sampleNanos, int admittedInFlight) {
+        final long rttNanos = Math.max(1, sampleNanos);
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+        }
+        // When latency falls well below the long term average, bring the average down faster than the window would
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // A server that was never near its limit has not shown it can take more
+        if (admittedInFlight < estimatedLimit / 2) {
+            return;
+        }
+        final double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNanos));
+        final double queueAllowance = Math.sqrt(estimatedLimit);
+        final double target = estimatedLimit * gradient + queueAllowance;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - smoothing) + target * smoothing));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.service.ImportFormat;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+@Component
+public class ImportFormatConverter implements Converter<String, ImportFormat> {
+    @Override
+    public ImportFormat convert(String source) {
+        return ImportFormat.valueOf(source.trim().toUpperCase(Locale.ROOT));
+    }
+}
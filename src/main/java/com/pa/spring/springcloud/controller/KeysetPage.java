@@ -0,0 +1,40 @@
+package com.pa.spring.springcloud.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+
+final class KeysetPage {
+    static final String DEFAULT_AFTER = "0";
+    static final String DEFAULT_LIMIT = "100";
+    private static final int MAX_LIMIT = 1000;
+
+    private KeysetPage() {
+    }
+
+    static int limit(int requestedLimit) {
+        return Math.max(1, Math.min(requestedLimit, MAX_LIMIT));
+    }
+
+    // A full page may be followed by more rows, so link to the page after its last id
+    static <T> ResponseEntity<List<T>> of(List<T> page, int limit, Function<T, Long> idOf) {
+        return of(page, limit, idOf, ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+
+    // For pages found off the request thread, where the current request has to be captured beforehand
+    static <T> ResponseEntity<List<T>> of(List<T> page, int limit, Function<T, Long> idOf, UriComponentsBuilder current) {
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == limit) {
+            final String next = current
+                    .replaceQueryParam("after", idOf.apply(page.get(page.size() - 1)))
+                    .replaceQueryParam("limit", limit)
+                    .build().toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+}
@@ -0,0 +1,143 @@
+package com.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.repository.QueryStatistics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Counts the statements each request runs and the time spent in JDBC, recorded by uri as request.jdbc.statements and
+// request.jdbc.time. With query-statistics.headers on they are also sent back as X-Query-Count and X-Query-Time (ms).
+// The statistics are kept as a request attribute, so a request handled asynchronously carries them through to its
+// final dispatch, where they are reported
+@Component
+public class QueryStatisticsFilter extends OncePerRequestFilter {
+    public static final String QUERY_COUNT = "X-Query-Count";
+    public static final String QUERY_TIME = "X-Query-Time";
+    private static final String STATISTICS_ATTRIBUTE = QueryStatisticsFilter.class.getName() + ".statistics";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headers;
+
+    @Autowired
+    public QueryStatisticsFilter(MeterRegistry meterRegistry, @Value("${query-statistics.headers:false}") boolean headers) {
+        this.meterRegistry = meterRegistry;
+        this.headers = headers;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStatistics statistics = (QueryStatistics) request.getAttribute(STATISTICS_ATTRIBUTE);
+        if (statistics == null) {
+            statistics = QueryStatistics.create();
+            request.setAttribute(STATISTICS_ATTRIBUTE, statistics);
+        }
+        final StatisticsHeaderResponse headerResponse = headers ? new StatisticsHeaderResponse(response, statistics) : null;
+        final QueryStatistics previous = QueryStatistics.bind(statistics);
+        try {
+            filterChain.doFilter(request, headerResponse == null ? response : headerResponse);
+        } finally {
+            QueryStatistics.bind(previous);
+            if (!isAsyncStarted(request)) {
+                if (headerResponse != null) {
+                    headerResponse.writeHeaders();
+                }
+                record(request, statistics);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStatistics statistics) {
+        final Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (uri == null) {
+            return;
+        }
+        DistributionSummary.builder("request.jdbc.statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri.toString())
+                .register(meterRegistry)
+                .record(statistics.getCount());
+        Timer.builder("request.jdbc.time")
+                .tag("method", request.getMethod())
+                .tag("uri", uri.toString())
+                .register(meterRegistry)
+                .record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // Headers have to be set before the body commits the response, so they carry the statements run up to then;
+    // a response streamed while still querying, like the export, only reports those run before it started
+    private static final class StatisticsHeaderResponse extends HttpServletResponseWrapper {
+        private final QueryStatistics statistics;
+        private boolean written;
+
+        StatisticsHeaderResponse(HttpServletResponse response, QueryStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        void writeHeaders() {
+            if (!written && !isCommitted()) {
+                setHeader(QUERY_COUNT, Long.toString(statistics.getCount()));
+                setHeader(QUERY_TIME, String.format(Locale.ROOT, "%.3f", statistics.getMillis()));
+            }
+            written = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.pa.spring.springcloud.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Caps a class of request that is cheap enough to run on the Jetty thread that received it
+final class SemaphoreBulkhead extends Bulkhead {
+    private final int concurrency;
+    private final int queue;
+    private final long timeoutNanos;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    SemaphoreBulkhead(String name, int concurrency, int queue, Duration timeout, MeterRegistry meterRegistry) {
+        super(name, meterRegistry);
+        this.concurrency = concurrency;
+        this.queue = queue;
+        this.timeoutNanos = timeout.toNanos();
+        this.permits = new Semaphore(concurrency);
+    }
+
+    // Waits up to the timeout for a permit, unless the queue of requests already waiting is full
+    void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > queue) {
+            waiting.decrementAndGet();
+            throw full();
+        }
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw timedOut();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw timedOut();
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    @Override
+    int concurrency() {
+        return concurrency;
+    }
+
+    @Override
+    int queue() {
+        return queue;
+    }
+
+    @Override
+    int active() {
+        return concurrency - permits.availablePermits();
+    }
+
+    @Override
+    int queued() {
+        return waiting.get();
+    }
+}
@@ -1,13 +1,19 @@
 package com.pa.spring.springcloud.controller;
 
 import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.service.BatchItemResult;
 import com.pa.spring.springcloud.service.SkillService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -21,8 +27,14 @@ public class SkillController {
     }
 
     @GetMapping
-    public ResponseEntity<Iterable> findAll() {
-        return ResponseEntity.ok(skillService.findAll());
+    public ResponseEntity<List<Skill>> findAll(@RequestParam(name = "after", defaultValue = KeysetPage.DEFAULT_AFTER) long after,
+                                               @RequestParam(name = "limit", defaultValue = KeysetPage.DEFAULT_LIMIT) int limit,
+                                               WebRequest request) {
+        if (request.checkNotModified(skillService.tableVersion())) {
+            return null;
+        }
+        final int pageLimit = KeysetPage.limit(limit);
+        return KeysetPage.of(skillService.findAll(after, pageLimit), pageLimit, Skill::getId);
     }
 
     @PostMapping
@@ -32,9 +44,16 @@ public class SkillController {
                 .body(savedSkill);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createBatch(@RequestBody List<Skill> skills) {
+        return ResponseEntity.ok(skillService.saveAll(skills));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Skill> findById(@PathVariable Long id) {
-        return ResponseEntity.of(skillService.findById(id));
+        return skillService.findById(id)
+                .map(skill -> ResponseEntity.ok().eTag(ETags.of(skill)).body(skill))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
@@ -44,11 +63,22 @@ public class SkillController {
         return (currentSkill.isEmpty()) ? ResponseEntity.notFound().build() : ResponseEntity.noContent().build();
     }
 
+    // With If-Match the replace only succeeds if the skill is unchanged since that ETag, up to the moment it is written
     @PutMapping("/{id}")
-    public ResponseEntity<Skill> createOrReplace(@PathVariable("id") Long id, @Valid @RequestBody Skill skill) {
-        final boolean isSkillPresent = skillService.findById(id).isPresent();
-        final Skill savedSkill = skillService.save(new Skill(skill, id));
-        return isSkillPresent ? ResponseEntity.ok(savedSkill) : ResponseEntity.created(URI.create("/skills/" + id))
-                .body(savedSkill);
+    public ResponseEntity<Skill> createOrReplace(@PathVariable("id") Long id, @Valid @RequestBody Skill skill,
+                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        final Optional<Skill> currentSkill = skillService.findById(id);
+        if (ifMatch != null && !currentSkill.map(current -> ETags.matches(ifMatch, ETags.of(current))).orElse(false)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        final Skill savedSkill;
+        try {
+            savedSkill = skillService.save(new Skill(skill, id, currentSkill.map(Skill::getVersion).orElse(0L)));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED).build();
+        }
+        final ResponseEntity.BodyBuilder response = currentSkill.isPresent()
+                ? ResponseEntity.ok() : ResponseEntity.created(URI.create("/skills/" + id));
+        return response.eTag(ETags.of(savedSkill)).body(savedSkill);
     }
 }
\ No newline at end of file
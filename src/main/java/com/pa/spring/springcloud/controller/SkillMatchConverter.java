@@ -0,0 +1,15 @@
+package com.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.service.SkillMatch;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+@Component
+public class SkillMatchConverter implements Converter<String, SkillMatch> {
+    @Override
+    public SkillMatch convert(String source) {
+        return SkillMatch.valueOf(source.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,24 @@
+package com.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.StartupTimeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+// Serves the startup timeline at /actuator/startup
+@Component
+@Endpoint(id = "startup")
+public class StartupEndpoint {
+    private final StartupTimeline startupTimeline;
+
+    @Autowired
+    public StartupEndpoint(StartupTimeline startupTimeline) {
+        this.startupTimeline = startupTimeline;
+    }
+
+    @ReadOperation
+    public StartupTimeline startup() {
+        return startupTimeline;
+    }
+}
@@ -0,0 +1,41 @@
+package com.pa.spring.springcloud.controller;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.lang.reflect.Method;
+
+// A Jetty thread pool whose threads are virtual, so a request waiting on JDBC parks rather than holding a platform
+// thread, and the pool can be sized for concurrent requests instead of CPUs. Virtual threads only exist from Java 21,
+// and the application is built for 11, so they are created reflectively; isSupported says whether this JVM has them
+public class VirtualThreadPool extends QueuedThreadPool {
+    private static final Method OF_VIRTUAL = method("java.lang.Thread", "ofVirtual");
+    private static final Method UNSTARTED = method("java.lang.Thread$Builder", "unstarted", Runnable.class);
+
+    public VirtualThreadPool(int maxThreads) {
+        super(maxThreads);
+        setName("jetty-virtual");
+        // Virtual threads are always daemon threads, and asking for anything else throws
+        setDaemon(true);
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && UNSTARTED != null;
+    }
+
+    @Override
+    protected Thread newThread(Runnable runnable) {
+        try {
+            return (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), runnable);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread", e);
+        }
+    }
+
+    private static Method method(String className, String name, Class<?>... parameterTypes) {
+        try {
+            return Class.forName(className).getMethod(name, parameterTypes);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package com.pa.spring.springcloud.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.pa.spring.springcloud.constants.ValidationMessage;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "assignment")
+@BatchSize(size = 100)
 public class Assignment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assignment_seq")
+    @GenericGenerator(name = "assignment_seq", strategy = "enhanced-sequence", parameters = {
+            @Parameter(name = "sequence_name", value = "assignment_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(updatable = false, nullable = false, unique = true)
     private Long id;
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
     @Column(nullable = false, unique = true)
     @NotEmpty
     private String name;
@@ -31,6 +50,11 @@ public class Assignment {
         return id;
     }
 
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -2,6 +2,12 @@ package com.pa.spring.springcloud.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.pa.spring.springcloud.constants.ValidationMessage;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
@@ -11,11 +17,27 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
+@Table(indexes = @Index(name = "idx_consultant_assignment", columnList = "assignment_id"))
+@NamedEntityGraph(name = Consultant.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("assignment"),
+        @NamedAttributeNode("skills")
+})
 public class Consultant {
+    public static final String DETAIL_GRAPH = "Consultant.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "consultant_seq")
+    @GenericGenerator(name = "consultant_seq", strategy = "enhanced-sequence", parameters = {
+            @Parameter(name = "sequence_name", value = "consultant_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(updatable = false, nullable = false, unique = true)
     private Long id;
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
     @Column(nullable = false)
     @NotEmpty
     private String fullName;
@@ -26,6 +48,8 @@ public class Consultant {
     @ManyToOne
     private Assignment assignment;
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "consultant-skills")
+    @BatchSize(size = 100) // Fallback for consultants loaded outside the detail graph
     private List<Skill> skills;
 
     @SuppressWarnings("unused") // Required for serialisation
@@ -49,6 +73,12 @@ public class Consultant {
         return id;
     }
 
+    // Bumped when its skills change too, but not when they are renamed
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
     public String getFullName() {
         return fullName;
     }
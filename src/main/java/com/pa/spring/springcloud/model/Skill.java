@@ -1,17 +1,34 @@
 package com.pa.spring.springcloud.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.pa.spring.springcloud.constants.ValidationMessage;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "skill")
 public class Skill {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "skill_seq")
+    @GenericGenerator(name = "skill_seq", strategy = "enhanced-sequence", parameters = {
+            @Parameter(name = "sequence_name", value = "skill_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(updatable = false, nullable = false, unique = true)
     private Long id;
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0") // Lets rows inserted by plain SQL leave the version out
+    private long version;
     @Column(nullable = false, unique = true)
     @NotEmpty
     private String name;
@@ -30,7 +47,12 @@ public class Skill {
     }
 
     public Skill(Skill skill, Long id) {
+        this(skill, id, 0);
+    }
+
+    public Skill(Skill skill, Long id, long version) {
         this.id = id;
+        this.version = version;
         this.name = skill.name;
         this.description = skill.description;
     }
@@ -39,6 +61,11 @@ public class Skill {
         return id;
     }
 
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,12 +1,21 @@
 package com.pa.spring.springcloud.repository;
 
 import com.pa.spring.springcloud.model.Assignment;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+
 @Repository
-public interface AssignmentRepository extends CrudRepository<Assignment, Long> {
+public interface AssignmentRepository extends PagingAndSortingRepository<Assignment, Long> {
+    List<Assignment> findAllByIdGreaterThanOrderById(Long after, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Optional<Assignment> findByName(String name);
 }
\ No newline at end of file
@@ -2,12 +2,73 @@ package com.pa.spring.springcloud.repository;
 
 import com.pa.spring.springcloud.model.Consultant;
 import com.pa.spring.springcloud.model.Skill;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface ConsultantRepository extends CrudRepository<Consultant, Long> {
+public interface ConsultantRepository extends PagingAndSortingRepository<Consultant, Long> {
     List<Consultant> findAllBySkillsContaining(Skill skill);
-}
\ No newline at end of file
+
+    @Override
+    @EntityGraph(Consultant.DETAIL_GRAPH)
+    Optional<Consultant> findById(Long id);
+
+    @Query("select c.id from Consultant c where c.id > :after order by c.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("select c.id from Consultant c where c.id in " +
+            "(select c2.id from Consultant c2 join c2.skills s where lower(s.name) in :skillNames) " +
+            "and c.id > :after order by c.id")
+    List<Long> findIdsWithAnySkill(@Param("skillNames") Collection<String> skillNames,
+                                   @Param("after") Long after, Pageable pageable);
+
+    @Query("select c.id from Consultant c where c.id in " +
+            "(select c2.id from Consultant c2 join c2.skills s where lower(s.name) in :skillNames " +
+            "group by c2.id having count(distinct s.id) = :skillCount) " +
+            "and c.id > :after order by c.id")
+    List<Long> findIdsWithAllSkills(@Param("skillNames") Collection<String> skillNames,
+                                    @Param("skillCount") long skillCount,
+                                    @Param("after") Long after, Pageable pageable);
+
+    @Query("select c.id from Consultant c where c.id in " +
+            "(select c2.id from Consultant c2 join c2.skills s " +
+            "where c2.assignment is null and lower(s.name) in :skillNames) " +
+            "and c.id > :after order by c.id")
+    List<Long> findIdsAvailableWithAnySkill(@Param("skillNames") Collection<String> skillNames,
+                                            @Param("after") Long after, Pageable pageable);
+
+    @Query("select c.id from Consultant c where c.id in " +
+            "(select c2.id from Consultant c2 join c2.skills s " +
+            "where c2.assignment is null and lower(s.name) in :skillNames " +
+            "group by c2.id having count(distinct s.id) = :skillCount) " +
+            "and c.id > :after order by c.id")
+    List<Long> findIdsAvailableWithAllSkills(@Param("skillNames") Collection<String> skillNames,
+                                             @Param("skillCount") long skillCount,
+                                             @Param("after") Long after, Pageable pageable);
+
+    @EntityGraph(Consultant.DETAIL_GRAPH)
+    List<Consultant> findDistinctByIdInOrderById(Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select c from Consultant c left join fetch c.assignment left join fetch c.skills order by c.id")
+    Stream<Consultant> streamAll();
+
+    @Query("select c.id as consultantId, s.id as skillId from Consultant c join c.skills s")
+    Stream<ConsultantSkillId> streamAllSkillIds();
+
+    @Query("select c.id from Consultant c where c.assignment is null")
+    Stream<Long> streamAllAvailableIds();
+}
@@ -0,0 +1,7 @@
+package com.pa.spring.springcloud.repository;
+
+public interface ConsultantSkillId {
+    Long getConsultantId();
+
+    Long getSkillId();
+}
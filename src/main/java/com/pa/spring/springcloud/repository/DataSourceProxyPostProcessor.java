@@ -0,0 +1,56 @@
+package com.pa.spring.springcloud.repository;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+// Wraps the data source, so every statement run through JPA or JDBC is counted in the current QueryStatistics and
+// considered for the slow query log
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+    private final SlowQueryLogger slowQueryLogger;
+
+    @Autowired
+    public DataSourceProxyPostProcessor(@Value("${slow-query.threshold:200ms}") Duration threshold,
+                                        @Value("${slow-query.sample-rate:0}") double sampleRate) {
+        this.slowQueryLogger = new SlowQueryLogger(threshold, sampleRate);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create((DataSource) bean)
+                .name(beanName)
+                .listener(new StatisticsListener())
+                .listener(slowQueryLogger)
+                .build();
+    }
+
+    // A batch counts as one statement, as it is one round trip
+    private static final class StatisticsListener implements QueryExecutionListener {
+        private final ThreadLocal<Long> started = new ThreadLocal<>();
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            started.set(System.nanoTime());
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            final Long start = started.get();
+            started.remove();
+            QueryStatistics.record(start == null ? 0 : System.nanoTime() - start);
+        }
+    }
+}
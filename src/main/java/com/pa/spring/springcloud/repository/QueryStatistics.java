@@ -0,0 +1,57 @@
+package com.pa.spring.springcloud.repository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// The statements run for a request, and the time spent waiting for them. They are counted on whichever thread the
+// statistics are bound to: the request thread to begin with, and any thread its work is handed on to, which binds
+// them for as long as it runs that work
+public final class QueryStatistics {
+    private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    private QueryStatistics() {
+    }
+
+    public static QueryStatistics create() {
+        return new QueryStatistics();
+    }
+
+    // Those bound to the current thread, or null when statements here are not counted anywhere
+    public static QueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    // Returns those bound before, for the caller to bind again once done; binding null unbinds
+    public static QueryStatistics bind(QueryStatistics statistics) {
+        final QueryStatistics previous = CURRENT.get();
+        if (statistics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics);
+        }
+        return previous;
+    }
+
+    static void record(long elapsedNanos) {
+        final QueryStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.count.increment();
+            statistics.nanos.add(elapsedNanos);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    public double getMillis() {
+        return getNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
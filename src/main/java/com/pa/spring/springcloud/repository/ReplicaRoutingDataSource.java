@@ -0,0 +1,87 @@
+package com.pa.spring.springcloud.repository;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Sends read-only transactions to the replica, and everything else to the primary: writes, and statements run outside a
+// transaction, as they may be writes. For as long as the replica may lag behind a write through this instance, reads go
+// to the primary too, so whoever wrote reads it back. The connection is only taken on the first statement, as a
+// transaction is marked read-only after it has begun
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagNanos;
+    private final LongSupplier nanoClock;
+    private volatile long lastWrite;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag) {
+        this(primary, replica, maxLag, System::nanoTime);
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag, LongSupplier nanoClock) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagNanos = maxLag.toNanos();
+        this.nanoClock = nanoClock;
+        this.lastWrite = nanoClock.getAsLong() - maxLagNanos;
+
+        final AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return route();
+            }
+        };
+        final Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+    }
+
+    private Target route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWrite();
+            return Target.PRIMARY;
+        }
+        return nanoClock.getAsLong() - lastWrite < maxLagNanos ? Target.PRIMARY : Target.REPLICA;
+    }
+
+    // The replica only starts to catch up once the transaction commits, so the lag is counted from then
+    private void recordWrite() {
+        lastWrite = nanoClock.getAsLong();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    lastWrite = nanoClock.getAsLong();
+                }
+            });
+        }
+    }
+
+    // The pools are not beans of their own, so they are closed with this one
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : new DataSource[]{primary, replica}) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+}
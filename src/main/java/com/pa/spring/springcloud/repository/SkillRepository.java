@@ -1,12 +1,28 @@
 package com.pa.spring.springcloud.repository;
 
 import com.pa.spring.springcloud.model.Skill;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+
 @Repository
-public interface SkillRepository extends CrudRepository<Skill, Long> {
+public interface SkillRepository extends PagingAndSortingRepository<Skill, Long> {
+    List<Skill> findAllByIdGreaterThanOrderById(Long after, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Optional<Skill> findByNameLikeIgnoreCase(String name);
+
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    @Query("select s from Skill s where lower(s.name) in :names")
+    List<Skill> findAllByNormalisedNameIn(@Param("names") Collection<String> names);
 }
\ No newline at end of file
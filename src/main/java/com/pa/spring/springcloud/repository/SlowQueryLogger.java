@@ -0,0 +1,54 @@
+package com.pa.spring.springcloud.repository;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Logs statements slower than the threshold, with their bind values and the service method that ran them, and a sample
+// of the rest. Nothing is formatted for statements that are not logged, and the slow-query logger is asynchronous in
+// logback-spring.xml, so the request thread never waits on the log
+class SlowQueryLogger implements QueryExecutionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger("slow-query");
+    private static final String SERVICE_PACKAGE = "com.pa.spring.springcloud.service.";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final long thresholdMillis;
+    private final double sampleRate;
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+    SlowQueryLogger(Duration threshold, double sampleRate) {
+        this.thresholdMillis = threshold.toMillis();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() >= thresholdMillis) {
+            if (LOGGER.isWarnEnabled()) {
+                LOGGER.warn("Slow query from {}: {}", caller(), logEntryCreator.getLogEntry(execInfo, queryInfoList, false, false));
+            }
+        } else if (sampleRate > 0 && LOGGER.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            LOGGER.info("Sampled query from {}: {}", caller(), logEntryCreator.getLogEntry(execInfo, queryInfoList, false, false));
+        }
+    }
+
+    // The innermost service method on the stack, skipping the proxies generated around the services
+    private static String caller() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(SERVICE_PACKAGE) && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(SERVICE_PACKAGE.length()) + "." + frame.getMethodName())
+                .orElse("outside a service"));
+    }
+}
@@ -3,32 +3,55 @@ package com.pa.spring.springcloud.service;
 import com.pa.spring.springcloud.model.Assignment;
 import com.pa.spring.springcloud.repository.AssignmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
 public class AssignmentService {
     private final AssignmentRepository assignmentRepository;
+    private final BatchInserter batchInserter;
+    private final ModificationCounter modificationCounter;
 
     @Autowired
-    public AssignmentService(AssignmentRepository assignmentRepository) {
+    public AssignmentService(AssignmentRepository assignmentRepository, BatchInserter batchInserter,
+                             ModificationCounter modificationCounter) {
         this.assignmentRepository = assignmentRepository;
+        this.batchInserter = batchInserter;
+        this.modificationCounter = modificationCounter;
     }
 
-    public Iterable<Assignment> findAll() {
-        return assignmentRepository.findAll();
+    public String tableVersion() {
+        return modificationCounter.version(Assignment.class);
     }
 
+    @Transactional(readOnly = true)
+    public List<Assignment> findAll(long after, int limit) {
+        return assignmentRepository.findAllByIdGreaterThanOrderById(after, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Assignment> findById(Long id) {
         return assignmentRepository.findById(id);
     }
 
     public Assignment save(Assignment assignment) {
-        return assignmentRepository.save(assignment);
+        final Assignment savedAssignment = assignmentRepository.save(assignment);
+        modificationCounter.increment(Assignment.class);
+        return savedAssignment;
+    }
+
+    public List<BatchItemResult> saveAll(List<Assignment> assignments) {
+        final List<BatchItemResult> results = batchInserter.insert(assignments);
+        modificationCounter.increment(Assignment.class);
+        return results;
     }
 
     public void delete(Assignment assignment) {
         assignmentRepository.delete(assignment);
+        modificationCounter.increment(Assignment.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.pa.spring.springcloud.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Persists each chunk in one transaction so Hibernate can batch its inserts; a chunk that fails is retried
+// item by item, so one bad row only rejects itself
+@Component
+public class BatchInserter {
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int chunkSize;
+
+    @Autowired
+    public BatchInserter(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                         Validator validator, @Value("${batch.chunk-size:500}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public <T> List<BatchItemResult> insert(List<T> items) {
+        return insert(items, item -> { });
+    }
+
+    public <T> List<BatchItemResult> insert(List<T> items, Consumer<T> onCreated) {
+        final BatchItemResult[] results = new BatchItemResult[items.size()];
+        final List<Integer> valid = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            final Set<ConstraintViolation<T>> violations = validator.validate(items.get(index));
+            if (violations.isEmpty()) {
+                valid.add(index);
+            } else {
+                results[index] = BatchItemResult.rejected(index, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            }
+        }
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            final List<Integer> chunk = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            try {
+                transactionTemplate.execute(status -> persist(items, chunk));
+                chunk.forEach(index -> results[index] = BatchItemResult.created(index, idOf(items.get(index))));
+            } catch (RuntimeException chunkFailure) {
+                for (Integer index : chunk) {
+                    clearId(items.get(index));
+                    results[index] = insertOne(items.get(index), index);
+                }
+            }
+        }
+        for (Integer index : valid) {
+            if (results[index].getStatus() == BatchItemResult.Status.CREATED) {
+                onCreated.accept(items.get(index));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private <T> BatchItemResult insertOne(T item, int index) {
+        try {
+            transactionTemplate.execute(status -> persist(List.of(item), List.of(0)));
+            return BatchItemResult.created(index, idOf(item));
+        } catch (RuntimeException e) {
+            clearId(item);
+            return BatchItemResult.rejected(index, rootCause(e).getMessage());
+        }
+    }
+
+    private <T> Void persist(List<T> items, List<Integer> indexes) {
+        for (Integer index : indexes) {
+            entityManager.persist(items.get(index));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return null;
+    }
+
+    private Long idOf(Object item) {
+        return (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(item);
+    }
+
+    // Rolled back items keep the id generated for them, which persist would then reject as detached
+    private void clearId(Object item) {
+        final EntityType<?> type = entityManager.getMetamodel().entity(item.getClass());
+        final Field id = (Field) type.getId(type.getIdType().getJavaType()).getJavaMember();
+        ReflectionUtils.makeAccessible(id);
+        ReflectionUtils.setField(id, item, null);
+    }
+
+    private static Throwable rootCause(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
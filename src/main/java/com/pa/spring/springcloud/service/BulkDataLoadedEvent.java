@@ -0,0 +1,10 @@
+package com.pa.spring.springcloud.service;
+
+import org.springframework.context.ApplicationEvent;
+
+// Published after rows are written behind Hibernate's back, so everything holding a copy of the tables reloads it
+public class BulkDataLoadedEvent extends ApplicationEvent {
+    public BulkDataLoadedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,68 @@
+package com.pa.spring.springcloud.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// One consultant as named in an import file; the setters also accept the shapes the exports write
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ConsultantImportRow {
+    private String fullName;
+    private String email;
+    private String assignment;
+    private List<String> skills = Collections.emptyList();
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    // An assignment name, or the assignment object of the NDJSON export
+    public void setAssignment(Object assignment) {
+        this.assignment = nameOf(assignment);
+    }
+
+    public List<String> getSkills() {
+        return skills;
+    }
+
+    // A list of skill names or skill objects, or the ';' separated cell of the CSV export
+    public void setSkills(Object skills) {
+        final Stream<?> names = skills instanceof String
+                ? Arrays.stream(((String) skills).split(";"))
+                : skills instanceof Collection ? ((Collection<?>) skills).stream() : Stream.empty();
+        this.skills = names.map(ConsultantImportRow::nameOf)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static String nameOf(Object value) {
+        final Object name = value instanceof Map ? ((Map<?, ?>) value).get("name") : value;
+        if (name == null || name.toString().trim().isEmpty()) {
+            return null;
+        }
+        return name.toString().trim();
+    }
+}
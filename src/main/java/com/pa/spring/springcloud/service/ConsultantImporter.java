@@ -0,0 +1,176 @@
+package com.pa.spring.springcloud.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.AssignmentRepository;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Streams consultants from a file and writes them in chunks, so only one chunk and the names looked up so far are
+// held in memory, whatever the size of the file. Only created on the first import
+@Component
+@Lazy
+public class ConsultantImporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsultantImporter.class);
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final ConsultantService consultantService;
+    private final SkillRepository skillRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    @Autowired
+    public ConsultantImporter(ConsultantService consultantService, SkillRepository skillRepository,
+                              AssignmentRepository assignmentRepository, ObjectMapper objectMapper,
+                              @Value("${batch.chunk-size:500}") int chunkSize) {
+        this.consultantService = consultantService;
+        this.skillRepository = skillRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReport importFrom(InputStream inputStream, ImportFormat format) throws IOException {
+        return importFrom(inputStream, format, report -> LOGGER.info("Importing consultants: {}", report));
+    }
+
+    // Progress is reported after each chunk is written
+    public ImportReport importFrom(InputStream inputStream, ImportFormat format,
+                                   Consumer<ImportReport> onProgress) throws IOException {
+        final ImportReport report = new ImportReport();
+        final ReferenceLookup lookup = new ReferenceLookup();
+        final Map<Long, ConsultantImportRow> chunk = new LinkedHashMap<>();
+        long row = 0;
+        try (MappingIterator<ConsultantImportRow> rows = reader(format).readValues(inputStream)) {
+            while (rows.hasNextValue()) {
+                row++;
+                try {
+                    chunk.put(row, rows.nextValue());
+                } catch (JsonProcessingException e) {
+                    report.rejected(row, e.getOriginalMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    write(chunk, lookup, report);
+                    onProgress.accept(report);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, lookup, report);
+            onProgress.accept(report);
+        }
+        return report;
+    }
+
+    private ObjectReader reader(ImportFormat format) {
+        return format == ImportFormat.CSV
+                ? CSV_MAPPER.readerFor(ConsultantImportRow.class).with(CsvSchema.emptySchema().withHeader())
+                : objectMapper.readerFor(ConsultantImportRow.class);
+    }
+
+    private void write(Map<Long, ConsultantImportRow> chunk, ReferenceLookup lookup, ImportReport report) {
+        lookup.load(chunk.values());
+        final List<Consultant> consultants = new ArrayList<>(chunk.size());
+        final List<Long> consultantRows = new ArrayList<>(chunk.size());
+        chunk.forEach((row, importRow) -> {
+            try {
+                consultants.add(lookup.toConsultant(importRow));
+                consultantRows.add(row);
+            } catch (IllegalArgumentException e) {
+                report.rejected(row, e.getMessage());
+            }
+        });
+        chunk.clear();
+        if (consultants.isEmpty()) {
+            return;
+        }
+        for (BatchItemResult result : consultantService.saveAll(consultants)) {
+            if (result.getStatus() == BatchItemResult.Status.CREATED) {
+                report.created();
+            } else {
+                report.rejected(consultantRows.get(result.getIndex()), result.getError());
+            }
+        }
+    }
+
+    // Skill and assignment names already resolved in this import, including those that matched nothing
+    private final class ReferenceLookup {
+        private final Map<String, List<Skill>> skillsByNormalisedName = new HashMap<>();
+        private final Map<String, Optional<Assignment>> assignmentsByName = new HashMap<>();
+
+        // Looks up the names in a chunk not yet seen, all skills in one query
+        void load(Collection<ConsultantImportRow> rows) {
+            final Set<String> missingSkills = rows.stream()
+                    .flatMap(row -> row.getSkills().stream())
+                    .map(ConsultantImporter::normalise)
+                    .filter(name -> !skillsByNormalisedName.containsKey(name))
+                    .collect(Collectors.toSet());
+            if (!missingSkills.isEmpty()) {
+                missingSkills.forEach(name -> skillsByNormalisedName.put(name, new ArrayList<>()));
+                skillRepository.findAllByNormalisedNameIn(missingSkills)
+                        .forEach(skill -> skillsByNormalisedName.computeIfAbsent(normalise(skill.getName()), name -> new ArrayList<>())
+                                .add(skill));
+            }
+            rows.stream()
+                    .map(ConsultantImportRow::getAssignment)
+                    .filter(name -> name != null && !assignmentsByName.containsKey(name))
+                    .distinct()
+                    .forEach(name -> assignmentsByName.put(name, assignmentRepository.findByName(name)));
+        }
+
+        Consultant toConsultant(ConsultantImportRow row) {
+            final Assignment assignment = row.getAssignment() == null ? null : assignmentsByName.get(row.getAssignment())
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown assignment: " + row.getAssignment()));
+            final List<Skill> skills = row.getSkills().stream()
+                    .map(this::skill)
+                    .distinct()
+                    .collect(Collectors.toList());
+            return new Consultant(row.getFullName(), row.getEmail(), assignment, skills);
+        }
+
+        // Skill names are only unique case-sensitively, so an exact match wins over a case-insensitive one
+        private Skill skill(String name) {
+            final List<Skill> candidates = skillsByNormalisedName.get(normalise(name));
+            return candidates.stream()
+                    .filter(skill -> skill.getName().equals(name))
+                    .findFirst()
+                    .orElseGet(() -> {
+                        if (candidates.size() != 1) {
+                            throw new IllegalArgumentException((candidates.isEmpty() ? "Unknown skill: " : "Ambiguous skill: ") + name);
+                        }
+                        return candidates.get(0);
+                    });
+        }
+    }
+
+    private static String normalise(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
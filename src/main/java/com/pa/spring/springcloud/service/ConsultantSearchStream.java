@@ -0,0 +1,69 @@
+package com.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.repository.QueryStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+// Streams every consultant a search matches, reading it through ConsultantService a keyset page at a time. The next
+// page is only read once the subscriber has taken the last one, so a slow client slows the reads down instead of the
+// whole result being held in memory. Reads block on JDBC, so they run on a few threads of their own, started with the
+// first stream rather than at startup. The caller's query statistics are bound while each page is read, so the
+// statements are counted for the request
+@Component
+@Lazy
+public class ConsultantSearchStream {
+    private final ConsultantService consultantService;
+    private final int pageSize;
+    private final Scheduler scheduler;
+
+    @Autowired
+    public ConsultantSearchStream(ConsultantService consultantService,
+                                  @Value("${search.stream.page-size:200}") int pageSize,
+                                  @Value("${search.stream.threads:4}") int threads) {
+        this.consultantService = consultantService;
+        this.pageSize = pageSize;
+        this.scheduler = Schedulers.fromExecutorService(
+                Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("consultant-search-stream-")));
+    }
+
+    public Flux<Consultant> findConsultantsWithSkills(String skillNames, SkillMatch match, boolean available) {
+        final QueryStatistics statistics = QueryStatistics.current();
+        return Flux.<List<Consultant>, Long>generate(() -> 0L, (after, sink) -> {
+            final List<Consultant> page;
+            final QueryStatistics previous = QueryStatistics.bind(statistics);
+            try {
+                page = available
+                        ? consultantService.findAvailableConsultantsWithSkills(skillNames, match, after, pageSize)
+                        : consultantService.findConsultantsWithSkills(skillNames, match, after, pageSize);
+            } finally {
+                QueryStatistics.bind(previous);
+            }
+            if (!page.isEmpty()) {
+                sink.next(page);
+            }
+            if (page.size() < pageSize) {
+                sink.complete();
+                return after;
+            }
+            return page.get(page.size() - 1).getId();
+        })
+                .subscribeOn(scheduler)
+                .flatMapIterable(page -> page, 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+}
@@ -1,58 +1,133 @@
 package com.pa.spring.springcloud.service;
 
+import com.pa.spring.springcloud.model.Assignment;
 import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
 import com.pa.spring.springcloud.repository.ConsultantRepository;
-import com.pa.spring.springcloud.repository.SkillRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
-import java.util.Collection;
+import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Component
 public class ConsultantService {
     private final ConsultantRepository consultantRepository;
-    private final SkillRepository skillRepository;
+    private final SkillNameResolver skillNameResolver;
+    private final ConsultantSkillIndex consultantSkillIndex;
+    private final EntityManager entityManager;
+    private final BatchInserter batchInserter;
+    private final ModificationCounter modificationCounter;
 
     @Autowired
-    public ConsultantService(ConsultantRepository consultantRepository, SkillRepository skillRepository) {
+    public ConsultantService(ConsultantRepository consultantRepository, SkillNameResolver skillNameResolver,
+                             ConsultantSkillIndex consultantSkillIndex, EntityManager entityManager,
+                             BatchInserter batchInserter, ModificationCounter modificationCounter) {
         this.consultantRepository = consultantRepository;
-        this.skillRepository = skillRepository;
+        this.skillNameResolver = skillNameResolver;
+        this.consultantSkillIndex = consultantSkillIndex;
+        this.entityManager = entityManager;
+        this.batchInserter = batchInserter;
+        this.modificationCounter = modificationCounter;
     }
 
-    public List<Consultant> findConsultantsWithSkills(String skillNames) {
-        return Arrays.stream(skillNames.split(","))
-                .map(String::trim)
-                .map(skillRepository::findByNameLikeIgnoreCase)
-                .filter(Optional::isPresent).map(Optional::get)
-                .map(consultantRepository::findAllBySkillsContaining)
-                .flatMap(Collection::stream)
-                .distinct()
-                .collect(Collectors.toList());
+    // Consultants are serialised with their skills and assignment, so a change to either changes the collection
+    public String tableVersion() {
+        return modificationCounter.version(Consultant.class, Skill.class, Assignment.class);
     }
 
-    public List<Consultant> findAvailableConsultantsWithSkills(String skillNames) {
-        return findConsultantsWithSkills(skillNames).stream()
-                .filter(Consultant::isAvailable)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<Consultant> findConsultantsWithSkills(String skillNames, SkillMatch match, long after, int limit) {
+        final Set<String> names = SkillNameResolver.normalise(skillNames);
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (consultantSkillIndex.isReady()) {
+            return searchIndex(names, match, false, after, limit);
+        }
+        final Pageable page = PageRequest.of(0, limit);
+        return hydrate(match == SkillMatch.ALL
+                ? consultantRepository.findIdsWithAllSkills(names, names.size(), after, page)
+                : consultantRepository.findIdsWithAnySkill(names, after, page));
     }
 
-    public Iterable<Consultant> findAll() {
-        return consultantRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<Consultant> findAvailableConsultantsWithSkills(String skillNames, SkillMatch match, long after, int limit) {
+        final Set<String> names = SkillNameResolver.normalise(skillNames);
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (consultantSkillIndex.isReady()) {
+            return searchIndex(names, match, true, after, limit);
+        }
+        final Pageable page = PageRequest.of(0, limit);
+        return hydrate(match == SkillMatch.ALL
+                ? consultantRepository.findIdsAvailableWithAllSkills(names, names.size(), after, page)
+                : consultantRepository.findIdsAvailableWithAnySkill(names, after, page));
     }
 
+    @Transactional(readOnly = true)
+    public List<Consultant> findAll(long after, int limit) {
+        return hydrate(consultantRepository.findIdsAfter(after, PageRequest.of(0, limit)));
+    }
+
+    // Each consultant is detached once written, so the persistence context does not grow with the table
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Consultant> sink) {
+        try (Stream<Consultant> consultants = consultantRepository.streamAll()) {
+            consultants.forEach(consultant -> {
+                sink.accept(consultant);
+                entityManager.detach(consultant);
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Consultant> findById(Long id) {
         return consultantRepository.findById(id);
     }
 
     public Consultant save(Consultant consultant) {
-        return consultantRepository.save(consultant);
+        final Consultant savedConsultant = consultantRepository.save(consultant);
+        consultantSkillIndex.update(savedConsultant);
+        modificationCounter.increment(Consultant.class);
+        return savedConsultant;
+    }
+
+    public List<BatchItemResult> saveAll(List<Consultant> consultants) {
+        final List<BatchItemResult> results = batchInserter.insert(consultants, consultantSkillIndex::update);
+        modificationCounter.increment(Consultant.class);
+        return results;
     }
 
     public void delete(Consultant assignment) {
         consultantRepository.delete(assignment);
+        consultantSkillIndex.remove(assignment.getId());
+        modificationCounter.increment(Consultant.class);
+    }
+
+    private List<Consultant> searchIndex(Set<String> names, SkillMatch match, boolean availableOnly,
+                                         long after, int limit) {
+        final Map<String, Set<Long>> skillIdsByName = skillNameResolver.resolve(names);
+        if (skillIdsByName.isEmpty() || match == SkillMatch.ALL && skillIdsByName.size() < names.size()) {
+            return Collections.emptyList();
+        }
+        return hydrate(consultantSkillIndex.search(skillIdsByName.values(), match, availableOnly, after, limit));
+    }
+
+    // Pages are selected as ids first, so the collection fetch in the detail graph never meets a row limit
+    private List<Consultant> hydrate(List<Long> consultantIds) {
+        return consultantIds.isEmpty()
+                ? Collections.emptyList()
+                : consultantRepository.findDistinctByIdInOrderById(consultantIds);
     }
-}
\ No newline at end of file
+}
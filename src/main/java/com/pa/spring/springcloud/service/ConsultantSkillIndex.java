@@ -0,0 +1,194 @@
+package com.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.ConsultantRepository;
+import com.pa.spring.springcloud.repository.ConsultantSkillId;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Maps each skill id to a compressed bitmap of the consultant ids holding it, so a rare skill costs a few bytes however
+// high its consultants' ids are. Besides those, only a bitmap of the consultants holding any skill is kept, so saving
+// a new consultant touches just the bitmaps of their skills, and only one already indexed is removed from every
+// skill's bitmap
+@Component
+public class ConsultantSkillIndex {
+    private final ConsultantRepository consultantRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Integer, RoaringBitmap> consultantsBySkill = new HashMap<>();
+    private RoaringBitmap indexedConsultants = new RoaringBitmap();
+    private RoaringBitmap availableConsultants = new RoaringBitmap();
+    private volatile boolean ready;
+
+    @Autowired
+    public ConsultantSkillIndex(ConsultantRepository consultantRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${search.index.enabled:true}") boolean enabled) {
+        this.consultantRepository = consultantRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, BulkDataLoadedEvent.class})
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            final Map<Integer, RoaringBitmap> skills = new HashMap<>();
+            final RoaringBitmap indexed = new RoaringBitmap();
+            final RoaringBitmap available = new RoaringBitmap();
+            consultantsBySkill = skills;
+            indexedConsultants = indexed;
+            availableConsultants = available;
+            transactionTemplate.execute(status -> {
+                try (Stream<ConsultantSkillId> rows = consultantRepository.streamAllSkillIds()) {
+                    rows.forEach(row -> {
+                        final int consultant = intOf(row.getConsultantId());
+                        final int skill = intOf(row.getSkillId());
+                        skills.computeIfAbsent(skill, skillId -> new RoaringBitmap()).add(consultant);
+                        indexed.add(consultant);
+                    });
+                }
+                try (Stream<Long> ids = consultantRepository.streamAllAvailableIds()) {
+                    ids.forEach(id -> available.add(intOf(id)));
+                }
+                return null;
+            });
+            skills.values().forEach(RoaringBitmap::runOptimize);
+            indexed.runOptimize();
+            available.runOptimize();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A disabled index is never searched, so it keeps nothing of the consultants saved
+    public void update(Consultant consultant) {
+        if (!enabled) {
+            return;
+        }
+        final int id = intOf(consultant.getId());
+        final int[] skills = consultant.getSkills().stream().map(Skill::getId).mapToInt(ConsultantSkillIndex::intOf)
+                .distinct().toArray();
+        lock.writeLock().lock();
+        try {
+            removeSkills(id);
+            for (int skill : skills) {
+                consultantsBySkill.computeIfAbsent(skill, skillId -> new RoaringBitmap()).add(id);
+            }
+            if (skills.length > 0) {
+                indexedConsultants.add(id);
+            }
+            if (consultant.isAvailable()) {
+                availableConsultants.add(id);
+            } else {
+                availableConsultants.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long consultantId) {
+        if (!enabled) {
+            return;
+        }
+        final int id = intOf(consultantId);
+        lock.writeLock().lock();
+        try {
+            removeSkills(id);
+            availableConsultants.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(Collection<Set<Long>> skillIdsPerTerm, SkillMatch match, boolean availableOnly,
+                             long after, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            for (Set<Long> skillIds : skillIdsPerTerm) {
+                final List<RoaringBitmap> consultants = new ArrayList<>(skillIds.size());
+                for (Long skillId : skillIds) {
+                    final RoaringBitmap holders = consultantsBySkill.get(intOf(skillId));
+                    if (holders != null) {
+                        consultants.add(holders);
+                    }
+                }
+                final RoaringBitmap term = FastAggregation.or(consultants.iterator());
+                if (result == null) {
+                    result = term;
+                } else if (match == SkillMatch.ALL) {
+                    result.and(term);
+                } else {
+                    result.or(term);
+                }
+            }
+            if (result == null) {
+                return Collections.emptyList();
+            }
+            if (availableOnly) {
+                result.and(availableConsultants);
+            }
+            final List<Long> consultantIds = new ArrayList<>(Math.min(limit, result.getCardinality()));
+            final PeekableIntIterator ids = result.getIntIterator();
+            ids.advanceIfNeeded(firstIdAfter(after));
+            while (ids.hasNext() && consultantIds.size() < limit) {
+                consultantIds.add((long) ids.next());
+            }
+            return consultantIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Only a consultant indexed with a skill can be in any skill's bitmap
+    private void removeSkills(int consultant) {
+        if (indexedConsultants.contains(consultant)) {
+            consultantsBySkill.values().forEach(holders -> holders.remove(consultant));
+            indexedConsultants.remove(consultant);
+        }
+    }
+
+    private static int firstIdAfter(long after) {
+        return (int) Math.max(0, Math.min(after + 1, Integer.MAX_VALUE));
+    }
+
+    private static int intOf(Long id) {
+        return Math.toIntExact(id);
+    }
+}
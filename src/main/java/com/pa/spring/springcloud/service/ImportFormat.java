@@ -0,0 +1,13 @@
+package com.pa.spring.springcloud.service;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    NDJSON,
+    CSV;
+
+    // Anything not named .csv is read as NDJSON, which the export also defaults to
+    public static ImportFormat forFile(String fileName) {
+        return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+    }
+}
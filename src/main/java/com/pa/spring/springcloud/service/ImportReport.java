@@ -0,0 +1,72 @@
+package com.pa.spring.springcloud.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Running totals of an import; only the first errors are kept, so a bad file cannot fill the heap with them
+public class ImportReport {
+    static final int MAX_ERRORS = 100;
+
+    private long rows;
+    private long created;
+    private long rejected;
+    private final List<RowError> errors = new ArrayList<>();
+
+    void created() {
+        rows++;
+        created++;
+    }
+
+    void rejected(long row, String error) {
+        rows++;
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(row, error));
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "rows=" + rows +
+                ", created=" + created +
+                ", rejected=" + rejected +
+                '}';
+    }
+
+    public static class RowError {
+        private final long row;
+        private final String error;
+
+        RowError(long row, String error) {
+            this.row = row;
+            this.error = error;
+        }
+
+        // Counted from 1, excluding the CSV header
+        public long getRow() {
+            return row;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counts the writes committed to each entity's table since startup, so a collection's version is known without reading
+// it; the startup time keeps one run's versions from being mistaken for another's
+@Component
+public class ModificationCounter {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final ConcurrentMap<Class<?>, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    public void increment(Class<?> entity) {
+        counts.computeIfAbsent(entity, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    @EventListener(BulkDataLoadedEvent.class)
+    public void onBulkDataLoaded() {
+        increment(Consultant.class);
+        increment(Skill.class);
+        increment(Assignment.class);
+    }
+
+    public String version(Class<?>... entities) {
+        final StringBuilder version = new StringBuilder(epoch);
+        for (Class<?> entity : entities) {
+            final AtomicLong count = counts.get(entity);
+            version.append('-').append(count == null ? 0 : count.get());
+        }
+        return version.toString();
+    }
+}
@@ -0,0 +1,6 @@
+package com.pa.spring.springcloud.service;
+
+public enum SkillMatch {
+    ANY,
+    ALL
+}
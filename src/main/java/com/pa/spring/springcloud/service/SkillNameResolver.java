@@ -0,0 +1,127 @@
+package com.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Maps lower-cased skill names to the ids of the skills with that name; names are only unique case-sensitively
+@Component
+public class SkillNameResolver {
+    private final SkillRepository skillRepository;
+    // Not a monitor, as reload holds it while querying, which would pin a virtual thread to its carrier
+    private final Lock lock = new ReentrantLock();
+
+    private volatile ConcurrentMap<String, Set<Long>> skillIdsByName = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SkillNameResolver(SkillRepository skillRepository) {
+        this.skillRepository = skillRepository;
+    }
+
+    public static Set<String> normalise(String skillNames) {
+        return Arrays.stream(skillNames.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    @EventListener({ApplicationReadyEvent.class, BulkDataLoadedEvent.class})
+    public void reload() {
+        lock.lock();
+        try {
+            final ConcurrentMap<String, Set<Long>> skills = new ConcurrentHashMap<>();
+            skillRepository.findAll().forEach(skill -> add(skills, skill));
+            skillIdsByName = skills;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Set<Long>> resolve(String skillNames) {
+        return resolve(normalise(skillNames));
+    }
+
+    public Map<String, Set<Long>> resolve(Collection<String> normalisedNames) {
+        final Map<String, Set<Long>> resolved = new HashMap<>();
+        final Set<String> misses = new HashSet<>();
+        for (String name : normalisedNames) {
+            final Set<Long> skillIds = skillIdsByName.get(name);
+            if (skillIds == null) {
+                misses.add(name);
+            } else {
+                resolved.put(name, skillIds);
+            }
+        }
+        if (!misses.isEmpty()) {
+            final List<Skill> skills = skillRepository.findAllByNormalisedNameIn(misses);
+            lock.lock();
+            try {
+                skills.forEach(skill -> add(skillIdsByName, skill));
+            } finally {
+                lock.unlock();
+            }
+            skills.forEach(skill -> resolved.merge(normalise(skill), Set.of(skill.getId()), SkillNameResolver::union));
+        }
+        return resolved;
+    }
+
+    public void update(Skill skill) {
+        lock.lock();
+        try {
+            removeId(skill.getId());
+            add(skillIdsByName, skill);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Skill skill) {
+        lock.lock();
+        try {
+            removeId(skill.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeId(Long skillId) {
+        skillIdsByName.replaceAll((name, skillIds) -> skillIds.contains(skillId) ? without(skillIds, skillId) : skillIds);
+        skillIdsByName.values().removeIf(Set::isEmpty);
+    }
+
+    private static void add(ConcurrentMap<String, Set<Long>> skills, Skill skill) {
+        skills.merge(normalise(skill), Set.of(skill.getId()), SkillNameResolver::union);
+    }
+
+    private static String normalise(Skill skill) {
+        return skill.getName().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> union(Set<Long> first, Set<Long> second) {
+        final Set<Long> skillIds = new HashSet<>(first);
+        skillIds.addAll(second);
+        return Set.copyOf(skillIds);
+    }
+
+    private static Set<Long> without(Set<Long> skillIds, Long skillId) {
+        return skillIds.stream().filter(id -> !id.equals(skillId)).collect(Collectors.toUnmodifiableSet());
+    }
+}
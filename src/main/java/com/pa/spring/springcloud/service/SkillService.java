@@ -3,32 +3,59 @@ package com.pa.spring.springcloud.service;
 import com.pa.spring.springcloud.model.Skill;
 import com.pa.spring.springcloud.repository.SkillRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
 public class SkillService {
     private final SkillRepository skillRepository;
+    private final SkillNameResolver skillNameResolver;
+    private final BatchInserter batchInserter;
+    private final ModificationCounter modificationCounter;
 
     @Autowired
-    public SkillService(SkillRepository skillRepository) {
+    public SkillService(SkillRepository skillRepository, SkillNameResolver skillNameResolver,
+                        BatchInserter batchInserter, ModificationCounter modificationCounter) {
         this.skillRepository = skillRepository;
+        this.skillNameResolver = skillNameResolver;
+        this.batchInserter = batchInserter;
+        this.modificationCounter = modificationCounter;
     }
 
-    public Iterable<Skill> findAll() {
-        return skillRepository.findAll();
+    public String tableVersion() {
+        return modificationCounter.version(Skill.class);
     }
 
+    @Transactional(readOnly = true)
+    public List<Skill> findAll(long after, int limit) {
+        return skillRepository.findAllByIdGreaterThanOrderById(after, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Skill> findById(Long id) {
         return skillRepository.findById(id);
     }
 
     public Skill save(Skill skill) {
-        return skillRepository.save(skill);
+        final Skill savedSkill = skillRepository.save(skill);
+        skillNameResolver.update(savedSkill);
+        modificationCounter.increment(Skill.class);
+        return savedSkill;
+    }
+
+    public List<BatchItemResult> saveAll(List<Skill> skills) {
+        final List<BatchItemResult> results = batchInserter.insert(skills, skillNameResolver::update);
+        modificationCounter.increment(Skill.class);
+        return results;
     }
 
     public void delete(Skill skill) {
         skillRepository.delete(skill);
+        skillNameResolver.remove(skill);
+        modificationCounter.increment(Skill.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.pa.spring.springcloud.service;
+
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Appends a seeded, reproducible dataset to the tables through batched JDBC inserts. Skill ids follow popularity, so
+// the first skill generated is the most popular; all names carry their id, so they never clash with existing rows
+@Component
+public class SyntheticDataGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+    // The statement proxies keep each row's parameters until its batch runs, so larger batches cost heap, not time
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void generate(SyntheticDataSpec spec) {
+        validate(spec);
+        final long start = System.nanoTime();
+        final Random random = new Random(spec.getSeed());
+        final long firstSkill = firstId("skill", "skill_seq");
+        final long firstAssignment = firstId("assignment", "assignment_seq");
+        final long firstConsultant = firstId("consultant", "consultant_seq");
+
+        insertSkills(firstSkill, spec.getSkills());
+        insertAssignments(firstAssignment, spec.getAssignments());
+        final double[] popularity = cumulativePopularity(spec.getSkills(), spec.getSkillPopularityExponent());
+        final List<Object[]> consultants = new ArrayList<>(BATCH_SIZE);
+        final List<Object[]> consultantSkills = new ArrayList<>(BATCH_SIZE * spec.getMaxSkillsPerConsultant());
+        for (long id = firstConsultant; id < firstConsultant + spec.getConsultants(); id++) {
+            final Long assignment = spec.getAssignments() > 0 && random.nextDouble() < spec.getAssignedShare()
+                    ? firstAssignment + random.nextInt(spec.getAssignments())
+                    : null;
+            consultants.add(new Object[]{id, "Consultant " + id, "consultant" + id + "@example.com", assignment});
+            for (Integer rank : drawSkills(random, popularity, spec)) {
+                consultantSkills.add(new Object[]{id, firstSkill + rank});
+            }
+            if (consultants.size() == BATCH_SIZE) {
+                insertConsultants(consultants, consultantSkills);
+            }
+        }
+        insertConsultants(consultants, consultantSkills);
+
+        restartSequence("skill_seq", firstSkill + spec.getSkills());
+        restartSequence("assignment_seq", firstAssignment + spec.getAssignments());
+        restartSequence("consultant_seq", firstConsultant + spec.getConsultants());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        eventPublisher.publishEvent(new BulkDataLoadedEvent(this));
+        LOGGER.info("Generated {} in {} ms", spec, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // The cumulative share of picks going to each skill rank, under a Zipf distribution
+    private static double[] cumulativePopularity(int skills, double exponent) {
+        final double[] cumulative = new double[skills];
+        double total = 0;
+        for (int rank = 0; rank < skills; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < skills; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    // Draws distinct skill ranks; a steep distribution can make the last few slow to find, so draws are bounded
+    private static Set<Integer> drawSkills(Random random, double[] popularity, SyntheticDataSpec spec) {
+        final int count = spec.getMinSkillsPerConsultant()
+                + random.nextInt(spec.getMaxSkillsPerConsultant() - spec.getMinSkillsPerConsultant() + 1);
+        final Set<Integer> ranks = new LinkedHashSet<>();
+        for (int draw = 0; ranks.size() < count && draw < count * 1_000; draw++) {
+            final int rank = Arrays.binarySearch(popularity, random.nextDouble());
+            ranks.add(Math.min(rank >= 0 ? rank : -rank - 1, popularity.length - 1));
+        }
+        return ranks;
+    }
+
+    private void insertSkills(long firstSkill, int skills) {
+        final List<Object[]> rows = new ArrayList<>(Math.min(skills, BATCH_SIZE));
+        for (long id = firstSkill; id < firstSkill + skills; id++) {
+            rows.add(new Object[]{id, "Skill " + id, "Synthetic skill " + id});
+            if (rows.size() == BATCH_SIZE) {
+                insert("INSERT INTO skill (id, name, description) values (?, ?, ?)", rows);
+            }
+        }
+        insert("INSERT INTO skill (id, name, description) values (?, ?, ?)", rows);
+    }
+
+    private void insertAssignments(long firstAssignment, int assignments) {
+        final List<Object[]> rows = new ArrayList<>(Math.min(assignments, BATCH_SIZE));
+        for (long id = firstAssignment; id < firstAssignment + assignments; id++) {
+            rows.add(new Object[]{id, "Assignment " + id});
+            if (rows.size() == BATCH_SIZE) {
+                insert("INSERT INTO assignment (id, name) values (?, ?)", rows);
+            }
+        }
+        insert("INSERT INTO assignment (id, name) values (?, ?)", rows);
+    }
+
+    private void insertConsultants(List<Object[]> consultants, List<Object[]> consultantSkills) {
+        insert("INSERT INTO consultant (id, full_name, email, assignment_id) values (?, ?, ?, ?)", consultants);
+        insert("INSERT INTO consultant_skills (consultant_id, skills_id) values (?, ?)", consultantSkills);
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+
+    // Past the rows already there, and past any block of ids Hibernate has already taken from the sequence
+    private long firstId(String table, String sequence) {
+        final long afterRows = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+        final long afterSequence = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+        return Math.max(afterRows, afterSequence);
+    }
+
+    // Hibernate allocates ids from the sequences, so they have to move past the rows inserted here
+    private void restartSequence(String sequence, long next) {
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+    }
+
+    private static void validate(SyntheticDataSpec spec) {
+        if (spec.getConsultants() < 0 || spec.getSkills() < 1 || spec.getAssignments() < 0) {
+            throw new IllegalArgumentException("Needs at least one skill, and no negative counts: " + spec);
+        }
+        if (spec.getMinSkillsPerConsultant() < 0 || spec.getMinSkillsPerConsultant() > spec.getMaxSkillsPerConsultant()
+                || spec.getMaxSkillsPerConsultant() > spec.getSkills()) {
+            throw new IllegalArgumentException("Skills per consultant must be a range within the skill count: " + spec);
+        }
+        if (spec.getAssignedShare() < 0 || spec.getAssignedShare() > 1 || spec.getSkillPopularityExponent() < 0) {
+            throw new IllegalArgumentException("Assigned share must be within 0..1, and the exponent not negative: " + spec);
+        }
+    }
+}
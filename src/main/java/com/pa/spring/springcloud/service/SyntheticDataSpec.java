@@ -0,0 +1,91 @@
+package com.pa.spring.springcloud.service;
+
+// The shape of a generated dataset; bound from the synthetic.* properties by the synthetic profile
+public class SyntheticDataSpec {
+    private long seed = 42;
+    private int consultants = 100_000;
+    private int skills = 5_000;
+    private int assignments = 500;
+    // Skill popularity falls off as 1 / rank^exponent; 0 makes every skill equally popular
+    private double skillPopularityExponent = 1.0;
+    private int minSkillsPerConsultant = 1;
+    private int maxSkillsPerConsultant = 8;
+    private double assignedShare = 0.7;
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getConsultants() {
+        return consultants;
+    }
+
+    public void setConsultants(int consultants) {
+        this.consultants = consultants;
+    }
+
+    public int getSkills() {
+        return skills;
+    }
+
+    public void setSkills(int skills) {
+        this.skills = skills;
+    }
+
+    public int getAssignments() {
+        return assignments;
+    }
+
+    public void setAssignments(int assignments) {
+        this.assignments = assignments;
+    }
+
+    public double getSkillPopularityExponent() {
+        return skillPopularityExponent;
+    }
+
+    public void setSkillPopularityExponent(double skillPopularityExponent) {
+        this.skillPopularityExponent = skillPopularityExponent;
+    }
+
+    public int getMinSkillsPerConsultant() {
+        return minSkillsPerConsultant;
+    }
+
+    public void setMinSkillsPerConsultant(int minSkillsPerConsultant) {
+        this.minSkillsPerConsultant = minSkillsPerConsultant;
+    }
+
+    public int getMaxSkillsPerConsultant() {
+        return maxSkillsPerConsultant;
+    }
+
+    public void setMaxSkillsPerConsultant(int maxSkillsPerConsultant) {
+        this.maxSkillsPerConsultant = maxSkillsPerConsultant;
+    }
+
+    public double getAssignedShare() {
+        return assignedShare;
+    }
+
+    public void setAssignedShare(double assignedShare) {
+        this.assignedShare = assignedShare;
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticDataSpec{" +
+                "seed=" + seed +
+                ", consultants=" + consultants +
+                ", skills=" + skills +
+                ", assignments=" + assignments +
+                ", skillPopularityExponent=" + skillPopularityExponent +
+                ", skillsPerConsultant=" + minSkillsPerConsultant + ".." + maxSkillsPerConsultant +
+                ", assignedShare=" + assignedShare +
+                '}';
+    }
+}
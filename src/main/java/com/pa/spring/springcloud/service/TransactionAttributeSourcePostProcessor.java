@@ -0,0 +1,86 @@
+package com.pa.spring.springcloud.service;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Spring looks up the transaction attribute of every method of every bean when it decides which beans to proxy, and
+// caches each answer, including that there is none: thousands of entries for the framework's own beans, about 2MB of
+// the 32MB heap. This replaces the attribute source @EnableTransactionManagement registers with one that first asks
+// whether the class declares a transaction anywhere, and remembers that per class instead
+@Component
+public class TransactionAttributeSourcePostProcessor implements BeanDefinitionRegistryPostProcessor {
+    // Named after the method of ProxyTransactionManagementConfiguration that declares it
+    public static final String BEAN_NAME = "transactionAttributeSource";
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+        if (!registry.containsBeanDefinition(BEAN_NAME)) {
+            return;
+        }
+        final RootBeanDefinition definition = new RootBeanDefinition(TransactionalClassAttributeSource.class);
+        definition.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+        registry.removeBeanDefinition(BEAN_NAME);
+        registry.registerBeanDefinition(BEAN_NAME, definition);
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+    }
+
+    static final class TransactionalClassAttributeSource extends AnnotationTransactionAttributeSource {
+        private static final List<Class<? extends Annotation>> ANNOTATION_TYPES = annotationTypes();
+
+        private final Map<Class<?>, Boolean> transactional = new ConcurrentReferenceHashMap<>();
+
+        @Override
+        public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+            if (!isTransactional(method.getDeclaringClass()) && (targetClass == null || !isTransactional(targetClass))) {
+                return null;
+            }
+            return super.getTransactionAttribute(method, targetClass);
+        }
+
+        private boolean isTransactional(Class<?> type) {
+            return transactional.computeIfAbsent(type, TransactionalClassAttributeSource::declaresTransaction);
+        }
+
+        // On the class or any of its methods, or on those they inherit or override
+        private static boolean declaresTransaction(Class<?> type) {
+            final Method[] methods = ReflectionUtils.getUniqueDeclaredMethods(type);
+            return ANNOTATION_TYPES.stream().anyMatch(annotationType -> AnnotatedElementUtils.hasAnnotation(type, annotationType)
+                    || Arrays.stream(methods).anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, annotationType)));
+        }
+
+        // Those the superclass parses, as far as they are on the classpath
+        @SuppressWarnings("unchecked")
+        private static List<Class<? extends Annotation>> annotationTypes() {
+            final ClassLoader classLoader = TransactionalClassAttributeSource.class.getClassLoader();
+            final List<Class<? extends Annotation>> types = new ArrayList<>();
+            types.add(Transactional.class);
+            for (String name : new String[]{"javax.transaction.Transactional", "javax.ejb.TransactionAttribute"}) {
+                if (ClassUtils.isPresent(name, classLoader)) {
+                    types.add((Class<? extends Annotation>) ClassUtils.resolveClassName(name, classLoader));
+                }
+            }
+            return types;
+        }
+    }
+}
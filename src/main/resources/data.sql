@@ -18,4 +18,9 @@ INSERT INTO consultant_skills (consultant_id, skills_id) values(2, 1);
 INSERT INTO consultant_skills (consultant_id, skills_id) values(2, 2);
 INSERT INTO consultant_skills (consultant_id, skills_id) values(3, 3);
 INSERT INTO consultant_skills (consultant_id, skills_id) values(4, 1);
-INSERT INTO consultant_skills (consultant_id, skills_id) values(4, 2);
\ No newline at end of file
+INSERT INTO consultant_skills (consultant_id, skills_id) values(4, 2);
+
+-- Ids come from pooled-lo sequences, so move them past the rows inserted above
+ALTER SEQUENCE assignment_seq RESTART WITH 5;
+ALTER SEQUENCE skill_seq RESTART WITH 4;
+ALTER SEQUENCE consultant_seq RESTART WITH 5;
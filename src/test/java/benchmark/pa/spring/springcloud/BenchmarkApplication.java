@@ -0,0 +1,45 @@
+package benchmark.pa.spring.springcloud;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.service.SyntheticDataGenerator;
+import com.pa.spring.springcloud.service.SyntheticDataSpec;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Starts the application against its own empty H2 database, then fills it with the same generated data every run
+public final class BenchmarkApplication {
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String database, WebApplicationType webApplicationType,
+                                                       boolean searchIndex, SyntheticDataSpec spec,
+                                                       String... profiles) {
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringCloudApplication.class)
+                .web(webApplicationType)
+                .profiles(profiles)
+                .properties("spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "server.port=0",
+                        "search.index.enabled=" + searchIndex)
+                .run();
+        context.getBean(SyntheticDataGenerator.class).generate(spec);
+        return context;
+    }
+
+    public static SyntheticDataSpec spec(int consultants, int skills, int skillsPerConsultant, double skillPopularityExponent) {
+        final SyntheticDataSpec spec = new SyntheticDataSpec();
+        spec.setConsultants(consultants);
+        spec.setSkills(skills);
+        spec.setAssignments(20);
+        spec.setMinSkillsPerConsultant(skillsPerConsultant);
+        spec.setMaxSkillsPerConsultant(skillsPerConsultant);
+        spec.setSkillPopularityExponent(skillPopularityExponent);
+        return spec;
+    }
+
+    // Generated skills are ranked by popularity, and the database starts empty, so skill 1 is the most popular
+    public static String skillName(int rank) {
+        return "Skill " + rank;
+    }
+}
@@ -0,0 +1,101 @@
+package benchmark.pa.spring.springcloud;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares a JMH JSON result file with a committed baseline, and fails when any benchmark has got worse by more than
+// the threshold and by more than the error margins of both runs: BenchmarkComparison <result> <baseline> <threshold %>
+// [update]
+public final class BenchmarkComparison {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Path result = Paths.get(args[0]);
+        final Path baseline = Paths.get(args[1]);
+        final double threshold = Double.parseDouble(args[2]) / 100;
+        if (args.length > 3 && Boolean.parseBoolean(args[3])) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline " + baseline + " updated from " + result);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + " to compare with; record one with -Dbenchmark.updateBaseline=true");
+            return;
+        }
+        final List<String> regressions = compare(scores(result), scores(baseline), threshold);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.out::println);
+            System.exit(1);
+        }
+    }
+
+    public static List<String> compare(Map<String, Score> results, Map<String, Score> baselines, double threshold) {
+        final List<String> regressions = new ArrayList<>();
+        results.forEach((benchmark, result) -> {
+            final Score baseline = baselines.get(benchmark);
+            if (baseline == null) {
+                System.out.println("NEW        " + benchmark + ": " + result);
+                return;
+            }
+            final double change = (result.value - baseline.value) / baseline.value;
+            final double worsening = result.higherIsBetter ? -change : change;
+            final boolean regressed = worsening > threshold
+                    && Math.abs(result.value - baseline.value) > result.error + baseline.error;
+            final String line = String.format("%-10s %s: %s against %s (%+.1f%%)",
+                    regressed ? "REGRESSION" : "OK", benchmark, result, baseline, change * 100);
+            System.out.println(line);
+            if (regressed) {
+                regressions.add(line);
+            }
+        });
+        return regressions;
+    }
+
+    // Keyed by benchmark and parameters, as one benchmark method is run once for each combination of @Param values
+    public static Map<String, Score> scores(Path file) throws IOException {
+        final Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : OBJECT_MAPPER.readTree(file.toFile())) {
+            final StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            final JsonNode metric = run.path("primaryMetric");
+            final double error = metric.path("scoreError").asDouble(0);
+            scores.put(key.toString(), new Score(metric.path("score").asDouble(), Double.isNaN(error) ? 0 : error,
+                    metric.path("scoreUnit").asText(), run.path("mode").asText().equals("thrpt")));
+        }
+        return scores;
+    }
+
+    public static final class Score {
+        private final double value;
+        private final double error;
+        private final String unit;
+        private final boolean higherIsBetter;
+
+        public Score(double value, double error, String unit, boolean higherIsBetter) {
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f +/- %.3f %s", value, error, unit);
+        }
+    }
+}
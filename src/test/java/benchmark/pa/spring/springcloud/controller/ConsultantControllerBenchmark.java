@@ -0,0 +1,77 @@
+package benchmark.pa.spring.springcloud.controller;
+
+import benchmark.pa.spring.springcloud.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Round trips requests through the dispatcher servlet, from request mapping to the serialised response body
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsultantControllerBenchmark {
+    @Param("10000")
+    public int consultants;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("consultant-controller-benchmark", WebApplicationType.SERVLET, true,
+                BenchmarkApplication.spec(consultants, 200, 5, 1));
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        if (findById().getResponse().getStatus() != 200) {
+            throw new IllegalStateException("Consultant 1 was not seeded");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult findById() throws Exception {
+        return mockMvc.perform(get("/consultants/1")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult findPage() throws Exception {
+        return mockMvc.perform(get("/consultants").param("limit", "100")).andReturn();
+    }
+
+    // Includes the hand off to the search bulkhead and back
+    @Benchmark
+    public MvcResult searchBySkill() throws Exception {
+        final MvcResult result = mockMvc.perform(get("/consultants")
+                .param("skills", BenchmarkApplication.skillName(1) + "," + BenchmarkApplication.skillName(2))
+                .param("limit", "100")).andReturn();
+        result.getAsyncResult(5_000);
+        return mockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+}
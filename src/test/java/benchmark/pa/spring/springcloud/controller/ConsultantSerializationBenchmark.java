@@ -0,0 +1,63 @@
+package benchmark.pa.spring.springcloud.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialises a page of consultants with an ObjectMapper configured as Spring MVC configures its own
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsultantSerializationBenchmark {
+    @Param({"100", "1000"})
+    public int consultants;
+
+    private ObjectWriter writer;
+    private List<Consultant> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(new TypeReference<List<Consultant>>() {
+        });
+        final Assignment assignment = new Assignment("Rentokil");
+        final List<Skill> skills = List.of(new Skill(new Skill("Java", "Java programming language"), 1L),
+                new Skill(new Skill("Spring", "Spring Framework"), 2L));
+        page = new ArrayList<>(consultants);
+        for (long id = 1; id <= consultants; id++) {
+            final Consultant consultant = new Consultant("Consultant " + id, "consultant" + id + "@example.com",
+                    id % 2 == 0 ? null : assignment, skills);
+            ReflectionTestUtils.setField(consultant, "id", id);
+            page.add(consultant);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeList() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark.pa.spring.springcloud.model;
+
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Deduplicates a result list the way a join over consultant skills produces it, one copy of a consultant per skill
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsultantDistinctBenchmark {
+    @Param("1000")
+    public int consultants;
+    @Param({"1", "10"})
+    public int skillsPerConsultant;
+
+    private List<Consultant> joinedRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        final Assignment assignment = new Assignment("Rentokil");
+        joinedRows = new ArrayList<>();
+        for (long id = 1; id <= consultants; id++) {
+            final List<Skill> skills = new ArrayList<>();
+            for (long skill = 1; skill <= skillsPerConsultant; skill++) {
+                skills.add(new Skill(new Skill("Skill " + skill, "Benchmark skill " + skill), skill));
+            }
+            // Separate but equal copies, as separate rows would be hydrated without a persistence context
+            for (int copy = 0; copy < skillsPerConsultant; copy++) {
+                final Consultant row = new Consultant("Consultant " + id, "consultant" + id + "@example.com",
+                        id % 2 == 0 ? null : assignment, new ArrayList<>(skills));
+                ReflectionTestUtils.setField(row, "id", id);
+                joinedRows.add(row);
+            }
+        }
+        Collections.shuffle(joinedRows, random);
+    }
+
+    @Benchmark
+    public List<Consultant> distinct() {
+        return joinedRows.stream().distinct().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int hashCodes() {
+        int hash = 0;
+        for (Consultant consultant : joinedRows) {
+            hash += consultant.hashCode();
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,82 @@
+package benchmark.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.service.BatchItemResult;
+import com.pa.spring.springcloud.service.SkillService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Scores are rows inserted per second, through one save per row and through a single bulk save
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+    private static final int ROWS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private SkillService skillService;
+    private long nextSkill;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringCloudApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:bulk-insert-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "search.index.enabled=false")
+                .run();
+        skillService = context.getBean(SkillService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleInserts() {
+        for (Skill skill : nextSkills()) {
+            skillService.save(skill);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<BatchItemResult> bulkInsert() {
+        return skillService.saveAll(nextSkills());
+    }
+
+    private List<Skill> nextSkills() {
+        final List<Skill> skills = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            final long skill = nextSkill++;
+            skills.add(new Skill("Skill " + skill, "Benchmark skill " + skill));
+        }
+        return skills;
+    }
+}
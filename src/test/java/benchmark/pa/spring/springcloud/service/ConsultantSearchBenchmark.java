@@ -0,0 +1,81 @@
+package benchmark.pa.spring.springcloud.service;
+
+import benchmark.pa.spring.springcloud.BenchmarkApplication;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.service.ConsultantService;
+import com.pa.spring.springcloud.service.SkillMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Searches a page of consultants by skill, through the bitmap index and through the database queries it replaces
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsultantSearchBenchmark {
+    private static final int LIMIT = 100;
+
+    @Param({"true", "false"})
+    public boolean searchIndex;
+    @Param("10000")
+    public int consultants;
+    @Param("200")
+    public int skills;
+    @Param("5")
+    public int skillsPerConsultant;
+    @Param({"0", "1"})
+    public double skillPopularityExponent;
+
+    private ConfigurableApplicationContext context;
+    private ConsultantService consultantService;
+    private String anySkills;
+    private String allSkills;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("consultant-search-benchmark", WebApplicationType.NONE, searchIndex,
+                BenchmarkApplication.spec(consultants, skills, skillsPerConsultant, skillPopularityExponent));
+        consultantService = context.getBean(ConsultantService.class);
+        anySkills = String.join(",", BenchmarkApplication.skillName(1), BenchmarkApplication.skillName(2),
+                BenchmarkApplication.skillName(3));
+        allSkills = String.join(",", BenchmarkApplication.skillName(1), BenchmarkApplication.skillName(2));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Consultant> anyOfThreeSkills() {
+        return consultantService.findConsultantsWithSkills(anySkills, SkillMatch.ANY, 0, LIMIT);
+    }
+
+    @Benchmark
+    public List<Consultant> allOfTwoSkills() {
+        return consultantService.findConsultantsWithSkills(allSkills, SkillMatch.ALL, 0, LIMIT);
+    }
+
+    @Benchmark
+    public List<Consultant> availableWithAnyOfThreeSkills() {
+        return consultantService.findAvailableConsultantsWithSkills(anySkills, SkillMatch.ANY, 0, LIMIT);
+    }
+}
@@ -0,0 +1,132 @@
+package benchmark.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import com.pa.spring.springcloud.service.SkillNameResolver;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Compares resolving a search's skill names against H2 holding 10k skills, as the searches did before the resolver
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkillNameResolverBenchmark {
+    @Param("10000")
+    public int skills;
+    @Param("5")
+    public int termsPerSearch;
+
+    private Connection connection;
+    private PreparedStatement likeIgnoreCase;
+    private SkillNameResolver skillNameResolver;
+    private String terms;
+    private Set<String> normalisedTerms;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:skill-name-benchmark;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE skill (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL UNIQUE, description VARCHAR(255))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO skill (id, name, description) VALUES (?, ?, ?)")) {
+            for (int id = 1; id <= skills; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "Skill " + id);
+                insert.setString(3, "Benchmark skill " + id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        likeIgnoreCase = connection.prepareStatement("SELECT id, name, description FROM skill WHERE upper(name) LIKE upper(?)");
+
+        final SkillRepository skillRepository = Mockito.mock(SkillRepository.class);
+        Mockito.when(skillRepository.findAll()).thenReturn(IntStream.rangeClosed(1, skills)
+                .mapToObj(id -> new Skill(new Skill("Skill " + id, "Benchmark skill " + id), (long) id))
+                .collect(Collectors.toList()));
+        skillNameResolver = new SkillNameResolver(skillRepository);
+        skillNameResolver.reload();
+
+        // Terms are spread across the table, so neither side benefits from reading the same rows
+        terms = IntStream.range(0, termsPerSearch)
+                .mapToObj(term -> " SKILL " + (1 + term * (skills / termsPerSearch)) + " ")
+                .collect(Collectors.joining(","));
+        normalisedTerms = SkillNameResolver.normalise(terms);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        likeIgnoreCase.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> likeIgnoreCasePerTerm() throws SQLException {
+        final List<Long> skillIds = new ArrayList<>();
+        for (String term : normalisedTerms) {
+            likeIgnoreCase.setString(1, term);
+            try (ResultSet resultSet = likeIgnoreCase.executeQuery()) {
+                while (resultSet.next()) {
+                    skillIds.add(resultSet.getLong(1));
+                }
+            }
+        }
+        return skillIds;
+    }
+
+    @Benchmark
+    public List<Long> lowerNameInAllTerms() throws SQLException {
+        final String placeholders = String.join(",", Collections.nCopies(normalisedTerms.size(), "?"));
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, name, description FROM skill WHERE lower(name) IN (" + placeholders + ")")) {
+            int index = 1;
+            for (String term : normalisedTerms) {
+                statement.setString(index++, term);
+            }
+            final List<Long> skillIds = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    skillIds.add(resultSet.getLong(1));
+                }
+            }
+            return skillIds;
+        }
+    }
+
+    @Benchmark
+    public Map<String, Set<Long>> resolver() {
+        return skillNameResolver.resolve(terms);
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pa.spring.springcloud.SpringCloudApplication;
 import com.pa.spring.springcloud.model.Assignment;
 import com.pa.spring.springcloud.service.AssignmentService;
+import com.pa.spring.springcloud.service.BatchItemResult;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -23,10 +24,12 @@ import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static unit.pa.spring.springcloud.util.Constants.Assignments.HOME_OFFICE;
 import static unit.pa.spring.springcloud.util.Constants.Assignments.RENTOKIL;
@@ -76,7 +79,7 @@ public class AssignmentControllerTest {
     @Test
     public void findAssignments_NoAssignments_ShouldReturnEmptyJSONArray() throws Exception {
         // Given we have no assignments
-        when(service.findAll()).thenReturn(Collections.emptyList());
+        when(service.findAll(0L, 100)).thenReturn(Collections.emptyList());
 
         // When we request all assignments
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -92,7 +95,7 @@ public class AssignmentControllerTest {
     @Test
     public void findAssignments_SingleAssignment_ShouldReturnJSONArray() throws Exception {
         // Given we have a single assignment
-        when(service.findAll()).thenReturn(Collections.singletonList(RENTOKIL));
+        when(service.findAll(0L, 100)).thenReturn(Collections.singletonList(RENTOKIL));
 
         // When we request all assignments
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -109,7 +112,7 @@ public class AssignmentControllerTest {
     @Test
     public void findAssignments_MultipleAssignments_ShouldReturnJSONArray() throws Exception {
         // Given we have multiple assignments
-        when(service.findAll()).thenReturn(Arrays.asList(RENTOKIL, HOME_OFFICE));
+        when(service.findAll(0L, 100)).thenReturn(Arrays.asList(RENTOKIL, HOME_OFFICE));
 
         // When we request all assignments
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -182,4 +185,24 @@ public class AssignmentControllerTest {
                 .content(invalidRequestJSON))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void createBatch_MixedItems_ShouldReturnOutcomeOfEachItem() throws Exception {
+        // Given the second of two assignments is rejected
+        when(service.saveAll(anyList())).thenReturn(Arrays.asList(BatchItemResult.created(0, 1L),
+                BatchItemResult.rejected(1, "name must not be empty")));
+
+        // When we post both assignments as a batch
+        mockMvc.perform(post(ENDPOINT + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(RENTOKIL, HOME_OFFICE))))
+                .andExpect(status().isOk())
+                // Then we get the outcome of each assignment, in the order they were posted
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].error").value("name must not be empty"));
+    }
+}
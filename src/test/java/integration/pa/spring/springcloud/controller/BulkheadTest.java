@@ -0,0 +1,107 @@
+package integration.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.service.ConsultantService;
+import com.pa.spring.springcloud.service.SkillMatch;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Bulkheads of one, with nowhere to queue, so a second request is refused while the first is held
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "bulkhead.search.threads=1",
+        "bulkhead.search.queue=0",
+        "bulkhead.read.concurrency=1",
+        "bulkhead.read.queue=0"
+})
+public class BulkheadTest {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ConsultantService service;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void findConsultantsWithSkill_SearchBulkheadFull_Should503() throws Exception {
+        // Given a search is holding the only search thread
+        when(service.findConsultantsWithSkills(eq("java"), eq(SkillMatch.ANY), anyLong(), anyInt())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Collections.emptyList();
+        });
+        final MvcResult first = mockMvc.perform(get("/consultants?skills=java"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When another search is made
+        // Then it is refused, while the first still completes once released
+        mockMvc.perform(get("/consultants?skills=java"))
+                .andExpect(status().isServiceUnavailable());
+        release.countDown();
+        first.getAsyncResult(5_000);
+        mockMvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void findById_ReadBulkheadFull_Should503() throws Exception {
+        // Given a read is holding the only read permit
+        when(service.findById(1L)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Optional.empty();
+        });
+        final CompletableFuture<MvcResult> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(get("/consultants/1")).andReturn();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When another read is made
+        // Then it is refused, while the first still completes once released
+        mockMvc.perform(get("/consultants/1"))
+                .andExpect(status().isServiceUnavailable());
+        release.countDown();
+        assertEquals(404, first.get(5, TimeUnit.SECONDS).getResponse().getStatus());
+    }
+}
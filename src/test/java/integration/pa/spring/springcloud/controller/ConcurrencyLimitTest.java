@@ -0,0 +1,112 @@
+package integration.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.service.ConsultantService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A limit pinned at one request in flight, so a second read is shed while the first is held
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "concurrency-limit.max-limit=1",
+        "management.endpoints.web.exposure.include=prometheus"
+})
+public class ConcurrencyLimitTest {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ConsultantService service;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void findById_OverLimit_Should503WithRetryAfter() throws Exception {
+        // Given a read is in flight
+        when(service.findById(1L)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Optional.empty();
+        });
+        final CompletableFuture<MvcResult> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(get("/consultants/1")).andReturn();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When another read is made
+        // Then it is refused at once and told when to retry, while other groups and the metrics are still served
+        mockMvc.perform(get("/consultants/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("concurrency_rejected_total{group=\"read\",}")));
+        release.countDown();
+        assertEquals(404, first.get(5, TimeUnit.SECONDS).getResponse().getStatus());
+
+        // And once the first has finished, reads are admitted again
+        mockMvc.perform(get("/consultants/1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void export_StreamedInSecondAsyncCycle_ShouldReleaseFixedPermitWithoutSamplingRtt() throws Exception {
+        // Given an export, whose result is handed back and whose body is then streamed in an async cycle of its own
+        final MvcResult started = mockMvc.perform(get("/consultants/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult(5_000);
+        final MvcResult streaming = mockMvc.perform(asyncDispatch(started))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streaming.getAsyncResult(5_000);
+
+        // When the container dispatches once the body has been written
+        mockMvc.perform(asyncDispatch(streaming));
+
+        // Then the export's permit is released, without its time in flight being taken for the server's latency
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("concurrency_in_flight{group=\"export\",} 0.0")))
+                .andExpect(content().string(not(containsString("concurrency_rtt_seconds_count{group=\"export\",}"))));
+    }
+}
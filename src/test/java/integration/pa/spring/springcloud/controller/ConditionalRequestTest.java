@@ -0,0 +1,80 @@
+package integration.pa.spring.springcloud.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.service.SkillService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs the conditional requests against the database, so the version columns themselves are exercised
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:conditional-requests;DB_CLOSE_DELAY=-1")
+public class ConditionalRequestTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SkillService skillService;
+
+    @Test
+    public void createOrReplace_IfMatchOfReplacedVersion_Should412() throws Exception {
+        // Given a skill, and the ETag we were sent for it
+        final Skill skill = skillService.save(new Skill("Java", "Java programming language"));
+        final String skillUri = "/skills/" + skill.getId();
+        final String eTag = mockMvc.perform(get(skillUri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When we replace it on condition it has not changed, then try again with the same ETag
+        final String replacedETag = mockMvc.perform(put(skillUri)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Skill("Java", "JVM language"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Then the first replace moves the skill on to a new ETag, and the second is refused
+        assertNotEquals(eTag, replacedETag);
+        mockMvc.perform(put(skillUri)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Skill("Java", "Lost update"))))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get(skillUri).header(HttpHeaders.IF_NONE_MATCH, replacedETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void findAll_AfterWrite_ShouldNoLongerMatchCollectionETag() throws Exception {
+        // Given the ETag we were sent for the skill collection
+        final String eTag = mockMvc.perform(get("/skills"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/skills").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        // When a skill is added
+        skillService.save(new Skill("Kotlin", "Kotlin programming language"));
+
+        // Then the collection is sent again
+        mockMvc.perform(get("/skills").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+}
@@ -5,7 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pa.spring.springcloud.SpringCloudApplication;
 import com.pa.spring.springcloud.model.Consultant;
 import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.service.BatchItemResult;
+import com.pa.spring.springcloud.service.ConsultantImporter;
 import com.pa.spring.springcloud.service.ConsultantService;
+import com.pa.spring.springcloud.service.ImportFormat;
+import com.pa.spring.springcloud.service.ImportReport;
+import com.pa.spring.springcloud.service.SkillMatch;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -13,21 +18,41 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static unit.pa.spring.springcloud.util.Constants.Consultants.*;
 import static unit.pa.spring.springcloud.util.Constants.Skills.JAVA;
@@ -50,6 +75,8 @@ public class ConsultantControllerTest {
 
     @MockBean
     private ConsultantService service;
+    @MockBean
+    private ConsultantImporter importer;
 
     @Test
     public void findConsultant_NoConsultants_Should404() throws Exception {
@@ -79,7 +106,7 @@ public class ConsultantControllerTest {
     @Test
     public void findConsultants_NoConsultants_ShouldReturnEmptyJSONArray() throws Exception {
         // Given we have no consultants
-        when(service.findAll()).thenReturn(Collections.emptyList());
+        when(service.findAll(0L, 100)).thenReturn(Collections.emptyList());
 
         // When we request all consultants
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -95,7 +122,7 @@ public class ConsultantControllerTest {
     @Test
     public void findConsultants_SingleConsultant_ShouldReturnJSONArray() throws Exception {
         // Given we have a single consultant
-        when(service.findAll()).thenReturn(Collections.singletonList(JOHN_DOE_RENTOKIL_JAVA));
+        when(service.findAll(0L, 100)).thenReturn(Collections.singletonList(JOHN_DOE_RENTOKIL_JAVA));
 
         // When we request all consultants
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -112,7 +139,7 @@ public class ConsultantControllerTest {
     @Test
     public void findConsultants_MultipleConsultants_ShouldReturnJSONArray() throws Exception {
         // Given we have multiple consultants
-        when(service.findAll()).thenReturn(Arrays.asList(JOHN_DOE_RENTOKIL_JAVA, JOHN_DOE_AVAILABLE_JAVA));
+        when(service.findAll(0L, 100)).thenReturn(Arrays.asList(JOHN_DOE_RENTOKIL_JAVA, JOHN_DOE_AVAILABLE_JAVA));
 
         // When we request all consultants
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -127,6 +154,42 @@ public class ConsultantControllerTest {
         assertTrue(consultants.contains(JOHN_DOE_AVAILABLE_JAVA));
     }
 
+    @Test
+    public void findConsultants_FullPage_ShouldLinkToNextPage() throws Exception {
+        // Given a page of one consultant is full
+        when(service.findAll(0L, 1)).thenReturn(Collections.singletonList(withId(JOHN_DOE_RENTOKIL_JAVA, 7L)));
+
+        // When we request the first page of one consultant
+        // Then the response links to the page after that consultant
+        mockMvc.perform(get(ENDPOINT + "?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LINK, "<http://localhost/consultants?after=7&limit=1>; rel=\"next\""));
+    }
+
+    @Test
+    public void findConsultants_PartialPage_ShouldNotLinkToNextPage() throws Exception {
+        // Given there is only one consultant after id 7
+        when(service.findAll(7L, 2)).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
+
+        // When we request the page of two consultants after id 7
+        // Then there is no next page link
+        mockMvc.perform(get(ENDPOINT + "?after=7&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void findConsultants_LimitAboveMaximum_ShouldCapLimit() throws Exception {
+        // Given we have no consultants
+        when(service.findAll(0L, 1000)).thenReturn(Collections.emptyList());
+
+        // When we request more consultants than the maximum page size
+        // Then the page size is capped
+        mockMvc.perform(get(ENDPOINT + "?limit=50000"))
+                .andExpect(status().isOk());
+        verify(service).findAll(0L, 1000);
+    }
+
     @Test
     public void findConsultantSkills_NoConsultants_Should404() throws Exception {
         // Given we have no consultants with id 1
@@ -178,10 +241,10 @@ public class ConsultantControllerTest {
     @Test
     public void findConsultantsWithSkill_NoConsultantsWithSkill_ShouldReturnEmptyJSONArray() throws Exception {
         // Given we have no Java consultants
-        when(service.findConsultantsWithSkills("java")).thenReturn(Collections.emptyList());
+        when(service.findConsultantsWithSkills("java", SkillMatch.ANY, 0L, 100)).thenReturn(Collections.emptyList());
 
         // When we call the consultant endpoint with the skills=java query string
-        final String response = mockMvc.perform(get(ENDPOINT + "?skills=java"))
+        final String response = performAsync(get(ENDPOINT + "?skills=java"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andReturn().getResponse().getContentAsString();
@@ -194,10 +257,10 @@ public class ConsultantControllerTest {
     @Test
     public void findConsultantsWithSkill_SingleConsultantsWithSkill_ShouldReturnJSONArray() throws Exception {
         // Given we have two Java consultants
-        when(service.findConsultantsWithSkills("java")).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
+        when(service.findConsultantsWithSkills("java", SkillMatch.ANY, 0L, 100)).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
 
         // When we call the consultant endpoint with the skills=java query string
-        final String response = mockMvc.perform(get(ENDPOINT + "?skills=java"))
+        final String response = performAsync(get(ENDPOINT + "?skills=java"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andReturn().getResponse().getContentAsString();
@@ -211,10 +274,10 @@ public class ConsultantControllerTest {
     @Test
     public void findConsultantsWithSkill_MultipleConsultantsWithSkill_ShouldReturnJSONArray() throws Exception {
         // Given we have two Java consultants
-        when(service.findConsultantsWithSkills("java")).thenReturn(Arrays.asList(JOHN_DOE_RENTOKIL_JAVA, JOHN_DOE_AVAILABLE_JAVA));
+        when(service.findConsultantsWithSkills("java", SkillMatch.ANY, 0L, 100)).thenReturn(Arrays.asList(JOHN_DOE_RENTOKIL_JAVA, JOHN_DOE_AVAILABLE_JAVA));
 
         // When we call the consultant endpoint with the skills=java query string
-        final String response = mockMvc.perform(get(ENDPOINT + "?skills=java"))
+        final String response = performAsync(get(ENDPOINT + "?skills=java"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andReturn().getResponse().getContentAsString();
@@ -229,10 +292,10 @@ public class ConsultantControllerTest {
     @Test
     public void findAvailableConsultantsWithSkill_NoConsultantsWithSkill_ShouldReturnEmptyJSONArray() throws Exception {
         // Given we have no available Java consultants
-        when(service.findAvailableConsultantsWithSkills("java")).thenReturn(Collections.emptyList());
+        when(service.findAvailableConsultantsWithSkills("java", SkillMatch.ANY, 0L, 100)).thenReturn(Collections.emptyList());
 
         // When we call the consultant endpoint with the skills=java&available query string
-        final String response = mockMvc.perform(get(ENDPOINT + "?skills=java&available"))
+        final String response = performAsync(get(ENDPOINT + "?skills=java&available"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andReturn().getResponse().getContentAsString();
@@ -245,10 +308,10 @@ public class ConsultantControllerTest {
     @Test
     public void findAvailableConsultantsWithSkill_SingleConsultantsWithSkill_ShouldReturnJSONArray() throws Exception {
         // Given we have one available Java consultant
-        when(service.findAvailableConsultantsWithSkills("java")).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
+        when(service.findAvailableConsultantsWithSkills("java", SkillMatch.ANY, 0L, 100)).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
 
         // When we call the consultant endpoint with the skills=java&available query string
-        final String response = mockMvc.perform(get(ENDPOINT + "?skills=java&available"))
+        final String response = performAsync(get(ENDPOINT + "?skills=java&available"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andReturn().getResponse().getContentAsString();
@@ -262,10 +325,10 @@ public class ConsultantControllerTest {
     @Test
     public void findAvailableConsultantsWithSkill_MultipleConsultantsWithSkill_ShouldReturnJSONArray() throws Exception {
         // Given we have two available Java consultants
-        when(service.findAvailableConsultantsWithSkills("java")).thenReturn(Arrays.asList(JOHN_DOE_RENTOKIL_JAVA, JOHN_DOE_AVAILABLE_JAVA));
+        when(service.findAvailableConsultantsWithSkills("java", SkillMatch.ANY, 0L, 100)).thenReturn(Arrays.asList(JOHN_DOE_RENTOKIL_JAVA, JOHN_DOE_AVAILABLE_JAVA));
 
         // When we call the consultant endpoint with the skills=java&available query string
-        final String response = mockMvc.perform(get(ENDPOINT + "?skills=java&available"))
+        final String response = performAsync(get(ENDPOINT + "?skills=java&available"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andReturn().getResponse().getContentAsString();
@@ -277,6 +340,68 @@ public class ConsultantControllerTest {
         assertTrue(consultants.contains(JOHN_DOE_AVAILABLE_JAVA));
     }
 
+    @Test
+    public void streamAvailableConsultantsWithSkill_MultipleConsultantsWithSkill_ShouldStreamOnePerLine() throws Exception {
+        // Given we have two available Java consultants, fewer than a page
+        when(service.findAvailableConsultantsWithSkills("java", SkillMatch.ANY, 0L, 200)).thenReturn(Arrays.asList(JOHN_DOE_RENTOKIL_JAVA, JOHN_DOE_AVAILABLE_JAVA));
+
+        // When we call the consultant stream endpoint with the skills=java&available query string
+        final MvcResult result = mockMvc.perform(get(ENDPOINT + "/stream?skills=java&available"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5_000);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        // Then each consultant is written as a JSON object on its own line
+        final String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(JOHN_DOE_RENTOKIL_JAVA, objectMapper.readValue(lines[0], Consultant.class));
+        assertEquals(JOHN_DOE_AVAILABLE_JAVA, objectMapper.readValue(lines[1], Consultant.class));
+    }
+
+    @Test
+    public void findConsultantsWithSkill_MatchAll_ShouldReturnConsultantsWithAllSkills() throws Exception {
+        // Given we have one consultant with both the Java and Spring skills
+        when(service.findConsultantsWithSkills("java,spring", SkillMatch.ALL, 0L, 100)).thenReturn(Collections.singletonList(JANE_DOE_RENTOKIL_JAVA_SPRING));
+
+        // When we call the consultant endpoint with the skills=java,spring&match=all query string
+        final String response = performAsync(get(ENDPOINT + "?skills=java,spring&match=all"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then we get a JSON array, containing the one consultant with both skills
+        final List<Consultant> consultants = objectMapper.readValue(response, CONSULTANT_LIST_TYPE_REF);
+        assertEquals(1, consultants.size());
+        assertTrue(consultants.contains(JANE_DOE_RENTOKIL_JAVA_SPRING));
+    }
+
+    @Test
+    public void findConsultantsWithSkill_InvalidMatch_ShouldReturn400Error() throws Exception {
+        // When we call the consultant endpoint with an unknown match mode
+        // Then we get a Bad Request error
+        mockMvc.perform(get(ENDPOINT + "?skills=java&match=some"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void findAvailableConsultantsWithSkill_MatchAll_ShouldReturnConsultantsWithAllSkills() throws Exception {
+        // Given we have one available consultant with both the Java and Spring skills
+        when(service.findAvailableConsultantsWithSkills("java,spring", SkillMatch.ALL, 0L, 100)).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
+
+        // When we call the consultant endpoint with the skills=java,spring&available&match=all query string
+        final String response = performAsync(get(ENDPOINT + "?skills=java,spring&available&match=all"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then we get a JSON array, containing the one matching consultant
+        final List<Consultant> consultants = objectMapper.readValue(response, CONSULTANT_LIST_TYPE_REF);
+        assertEquals(1, consultants.size());
+        assertTrue(consultants.contains(JOHN_DOE_AVAILABLE_JAVA));
+    }
+
     @Test
     public void create_ValidConsultant_ShouldReturnConsultant() throws Exception {
         // Given the service returns the passed in consultant
@@ -374,4 +499,127 @@ public class ConsultantControllerTest {
                 .content(invalidRequestJSON))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void export_DefaultFormat_ShouldStreamOneJSONConsultantPerLine() throws Exception {
+        // Given we have two consultants
+        doAnswer(invocation -> {
+            final Consumer<Consultant> sink = invocation.getArgument(0);
+            sink.accept(JOHN_DOE_RENTOKIL_JAVA);
+            sink.accept(JANE_DOE_RENTOKIL_JAVA_SPRING);
+            return null;
+        }).when(service).exportAll(any());
+
+        // When we export the consultants
+        final String response = performAsync(get(ENDPOINT + "/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then each consultant is written as JSON on its own line
+        final String[] lines = response.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(JOHN_DOE_RENTOKIL_JAVA, objectMapper.readValue(lines[0], Consultant.class));
+        assertEquals(JANE_DOE_RENTOKIL_JAVA_SPRING, objectMapper.readValue(lines[1], Consultant.class));
+    }
+
+    @Test
+    public void export_CsvFormat_ShouldStreamHeaderAndOneRowPerConsultant() throws Exception {
+        // Given we have a single consultant
+        doAnswer(invocation -> {
+            final Consumer<Consultant> sink = invocation.getArgument(0);
+            sink.accept(withId(JANE_DOE_RENTOKIL_JAVA_SPRING, 7L));
+            return null;
+        }).when(service).exportAll(any());
+
+        // When we export the consultants as CSV
+        final String response = performAsync(get(ENDPOINT + "/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then we get a header row, then the consultant with their skills joined
+        final String[] lines = response.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("id,fullName,email,assignment,skills", lines[0]);
+        assertEquals("7," + JANE_DOE_RENTOKIL_JAVA_SPRING.getFullName() + "," + JANE_DOE_RENTOKIL_JAVA_SPRING.getEmail() + ","
+                + JANE_DOE_RENTOKIL_JAVA_SPRING.getAssignment().getName() + "," + JAVA.getName() + ";" + SPRING.getName(),
+                lines[1].replace("\"", ""));
+    }
+
+    @Test
+    public void export_FailsBeforeWriting_ShouldReturnErrorStatus() throws Exception {
+        // Given reading the consultants fails before any is written
+        doThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE)).when(service).exportAll(any());
+
+        // When we export the consultants
+        // Then the response has not started, so it gets the failure's status
+        performAsync(get(ENDPOINT + "/export"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void export_UnknownFormat_ShouldReturn400Error() throws Exception {
+        // When we export the consultants in an unsupported format
+        // Then we get a Bad Request error
+        mockMvc.perform(get(ENDPOINT + "/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void createBatch_MixedItems_ShouldReturnOutcomeOfEachItem() throws Exception {
+        // Given the second of two consultants is rejected
+        when(service.saveAll(anyList())).thenReturn(Arrays.asList(BatchItemResult.created(0, 1L),
+                BatchItemResult.rejected(1, "email must not be empty")));
+
+        // When we post both consultants as a batch
+        mockMvc.perform(post(ENDPOINT + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(JOHN_DOE_RENTOKIL_JAVA, JANE_DOE_RENTOKIL_JAVA_SPRING))))
+                .andExpect(status().isOk())
+                // Then we get the outcome of each consultant, in the order they were posted
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].error").value("email must not be empty"));
+    }
+
+    @Test
+    public void importFile_CsvUpload_ShouldImportAsCsvAndReturnReport() throws Exception {
+        // Given the importer reads the uploaded file
+        when(importer.importFrom(any(), eq(ImportFormat.CSV))).thenReturn(new ImportReport());
+
+        // When we upload a file named .csv, without naming its format
+        mockMvc.perform(multipart(ENDPOINT + "/import")
+                .file(new MockMultipartFile("file", "consultants.csv", "text/csv",
+                        "fullName,email\nJohn Doe,john@doe".getBytes())))
+                .andExpect(status().isOk())
+                // Then it is imported as CSV, and we get the import report
+                .andExpect(jsonPath("$.rows").value(0))
+                .andExpect(jsonPath("$.errors").isArray());
+        verify(importer).importFrom(any(), eq(ImportFormat.CSV));
+    }
+
+    // Searches and exports complete on a bulkhead, so their response is only written once the result is dispatched
+    private ResultActions performAsync(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        final MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5_000);
+        final ResultActions dispatched = mockMvc.perform(asyncDispatch(result));
+        // A streamed body goes on being written after the dispatch, so wait for it to complete too
+        final MvcResult dispatchedResult = dispatched.andReturn();
+        if (dispatchedResult.getRequest().isAsyncStarted()) {
+            dispatchedResult.getAsyncResult(5_000);
+        }
+        return dispatched;
+    }
+
+    private static Consultant withId(Consultant consultant, Long id) {
+        final Consultant copy = new Consultant(consultant.getFullName(), consultant.getEmail(), consultant.getAssignment(), consultant.getSkills());
+        ReflectionTestUtils.setField(copy, "id", id);
+        return copy;
+    }
+}
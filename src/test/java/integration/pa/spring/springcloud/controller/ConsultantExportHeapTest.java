@@ -0,0 +1,100 @@
+package integration.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Exports the table over a real connection, as MockMvc would buffer the whole response in memory. Run by the heap
+// profile in a JVM of its own with the heap the application is deployed with, so it passes only if the export
+// completes within it: mvn -P heap test
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SpringCloudApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"prod", "lowmem"})
+@TestPropertySource(properties = {
+        // The page store sizes its cache in KB, where the MVStore's is at least a megabyte of this heap
+        "spring.datasource.url=jdbc:h2:file:./target/h2/consultant-export;MV_STORE=FALSE;CACHE_SIZE=64",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "search.index.enabled=false"
+})
+public class ConsultantExportHeapTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsultantExportHeapTest.class);
+    private static final int CONSULTANTS = Integer.getInteger("export.consultants", 500_000);
+    private static final int BATCH_SIZE = 10_000;
+    private static final int SAMPLE_EVERY = 100_000;
+    // Matches the -Xmx32m the application is deployed with in app.yaml
+    private static final long PRODUCTION_HEAP_LIMIT = 32L * 1024 * 1024;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private DataSource dataSource;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Before
+    public void setUp() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO assignment (id, name) values(1, 'Rentokil')");
+        jdbcTemplate.update("INSERT INTO skill (id, name, description) values(1, 'Java', 'Programming language')");
+        jdbcTemplate.update("INSERT INTO skill (id, name, description) values(2, 'Spring', 'Spring Framework')");
+        // Generated by the database, so the rows never pass through this heap
+        for (int first = 1; first <= CONSULTANTS; first += BATCH_SIZE) {
+            final int last = Math.min(first + BATCH_SIZE - 1, CONSULTANTS);
+            jdbcTemplate.update("INSERT INTO consultant (id, full_name, email, assignment_id) "
+                    + "SELECT x, 'Consultant ' || x, 'consultant' || x || '@example.com', CASEWHEN(MOD(x, 2) = 0, NULL, 1) "
+                    + "FROM SYSTEM_RANGE(?, ?)", first, last);
+            jdbcTemplate.update("INSERT INTO consultant_skills (consultant_id, skills_id) "
+                    + "SELECT x, MOD(x, 2) + 1 FROM SYSTEM_RANGE(?, ?)", first, last);
+        }
+    }
+
+    @Test
+    public void export_ManyConsultants_ShouldCompleteWithinProductionHeapLimit() throws Exception {
+        // Given a heap no larger than production's
+        assertTrue("Run with -Xmx32m: mvn -P heap test", Runtime.getRuntime().maxMemory() <= PRODUCTION_HEAP_LIMIT);
+
+        // When we read the whole NDJSON export, sampling the heap as it streams
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/consultants/export").openConnection();
+        long peak = usedHeapAfterGc();
+        int lines = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            while (reader.readLine() != null) {
+                if (++lines % SAMPLE_EVERY == 0) {
+                    peak = Math.max(peak, usedHeapAfterGc());
+                }
+            }
+        }
+        LOGGER.info("Exported {} consultants, with at most {} bytes of heap in use", lines, peak);
+
+        // Then every consultant is exported
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(CONSULTANTS, lines);
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
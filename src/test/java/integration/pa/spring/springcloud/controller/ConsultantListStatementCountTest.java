@@ -0,0 +1,128 @@
+package integration.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.AssignmentRepository;
+import com.pa.spring.springcloud.repository.ConsultantRepository;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import integration.pa.spring.springcloud.util.QueryCount;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
+// Consultants are saved through the repository here, so searches go to the database rather than the skill index
+@TestPropertySource(properties = "search.index.enabled=false")
+public class ConsultantListStatementCountTest {
+    private static final String ENDPOINT = "/consultants";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ConsultantRepository consultantRepository;
+    @Autowired
+    private SkillRepository skillRepository;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Skill java;
+    private Skill spring;
+    private Assignment rentokil;
+
+    @Before
+    public void setUp() {
+        java = skillRepository.save(new Skill("Java", "Java programming language"));
+        spring = skillRepository.save(new Skill("Spring", "Spring Framework"));
+        rentokil = assignmentRepository.save(new Assignment("Rentokil"));
+    }
+
+    @After
+    public void tearDown() {
+        consultantRepository.deleteAll();
+        skillRepository.deleteAll();
+        assignmentRepository.deleteAll();
+    }
+
+    @Test
+    public void findConsultants_MoreConsultants_ShouldNotIssueMoreStatements() throws Exception {
+        // Given we list 3 consultants, and then 30 consultants
+        saveConsultants(0, 3);
+        final long fewConsultantStatements = countStatements();
+        saveConsultants(3, 30);
+        final long manyConsultantStatements = countStatements();
+
+        // Then both lists are read with the same number of statements: one for the page of ids, one to load them
+        assertEquals(2, fewConsultantStatements);
+        assertEquals(fewConsultantStatements, manyConsultantStatements);
+    }
+
+    @Test
+    public void findById_ConsultantWithSkillsAndAssignment_ShouldRunOneStatement() throws Exception {
+        // Given a consultant with skills and an assignment
+        final Consultant consultant = consultantRepository.save(new Consultant("Consultant", "consultant@example.com",
+                rentokil, Arrays.asList(java, spring)));
+
+        // When we fetch them
+        // Then they are read in a single statement, with their skills and assignment joined in
+        mockMvc.perform(get(ENDPOINT + "/" + consultant.getId()))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atMost(1));
+    }
+
+    @Test
+    public void findConsultantsWithSkill_RunOnSearchBulkhead_ShouldCountItsStatements() throws Exception {
+        // Given consultants with the Java skill
+        saveConsultants(0, 3);
+
+        // When we search for them, which runs on a thread of the search bulkhead
+        final MvcResult result = mockMvc.perform(get(ENDPOINT + "?skills=java"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5_000);
+
+        // Then the statements run there are reported: one for the page of ids, one to load them
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atLeast(2))
+                .andExpect(QueryCount.atMost(2));
+    }
+
+    private void saveConsultants(int from, int to) {
+        for (int i = from; i < to; i++) {
+            consultantRepository.save(new Consultant("Consultant " + i, "consultant" + i + "@example.com",
+                    i % 2 == 0 ? rentokil : null, Arrays.asList(java, spring)));
+        }
+    }
+
+    private long countStatements() throws Exception {
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(ENDPOINT)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,160 @@
+package integration.pa.spring.springcloud.controller;
+
+import benchmark.pa.spring.springcloud.BenchmarkApplication;
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.service.ConsultantSkillIndex;
+import com.pa.spring.springcloud.service.SyntheticDataGenerator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Runs a mix of searches and reads against 100k consultants over real connections, with the profiles app.yaml deploys,
+// taking the heap after a full collection every so often as it runs. Run by the heap profile in a JVM of its own with
+// the heap the application is deployed with, so the budget is for everything the application holds, the skill index
+// included; the database is on disk, as its cache is sized: mvn -P heap test
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SpringCloudApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"prod", "lowmem"})
+@TestPropertySource(properties = {
+        // The page store sizes its cache in KB, where the MVStore's is at least a megabyte of this heap; each session
+        // would otherwise keep its last eight statements' plans, a hundred KB or so each with this data
+        "spring.datasource.url=jdbc:h2:file:./target/h2/low-memory;MV_STORE=FALSE;CACHE_SIZE=64;QUERY_CACHE_SIZE=0",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+public class LowMemoryHeapTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LowMemoryHeapTest.class);
+    private static final int CONSULTANTS = Integer.getInteger("lowmem.consultants", 100_000);
+    private static final int SKILLS = 2_000;
+    private static final int REQUESTS = Integer.getInteger("lowmem.requests", 5_000);
+    // As many clients as the profile gives Jetty threads
+    private static final int CLIENTS = 16;
+    private static final long HEAP_BUDGET = Long.getLong("lowmem.heap-budget-mb", 30) * 1024 * 1024;
+    // Requests beyond what the bulkheads and concurrency limits admit are shed, but most must be served
+    private static final double MIN_OK_SHARE = Double.parseDouble(System.getProperty("lowmem.min-ok-share", "0.9"));
+    // Matches the -Xmx32m the application is deployed with in app.yaml
+    private static final long PRODUCTION_HEAP_LIMIT = 32L * 1024 * 1024;
+    private static final long SAMPLE_INTERVAL_MILLIS = 250;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private SyntheticDataGenerator syntheticDataGenerator;
+    @Autowired
+    private ConsultantSkillIndex consultantSkillIndex;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    @Test
+    public void mixedWorkload_LowMemoryProfile_ShouldStayWithinHeapBudget() throws Exception {
+        // Given a heap no larger than production's, and 100k consultants indexed by skill
+        assertTrue("Run with -Xmx32m: mvn -P heap test", Runtime.getRuntime().maxMemory() <= PRODUCTION_HEAP_LIMIT);
+        syntheticDataGenerator.generate(BenchmarkApplication.spec(CONSULTANTS, SKILLS, 5, 1));
+        assertTrue(consultantSkillIndex.isReady());
+
+        // When clients send a mix of requests, sampling the heap as they do
+        final long before = usedHeapAfterGc();
+        final AtomicLong peak = new AtomicLong(before);
+        final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleWithFixedDelay(() -> peak.accumulateAndGet(usedHeapAfterGc(), Math::max),
+                SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        final AtomicInteger sent = new AtomicInteger();
+        try {
+            final Future<?>[] runs = new Future<?>[CLIENTS];
+            for (int client = 0; client < CLIENTS; client++) {
+                final Random random = new Random(client);
+                runs[client] = clients.submit(() -> {
+                    for (int request = sent.getAndIncrement(); request < REQUESTS; request = sent.getAndIncrement()) {
+                        send(path(request, random));
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> run : runs) {
+                run.get(10, TimeUnit.MINUTES);
+            }
+        } finally {
+            clients.shutdownNow();
+            sampler.shutdownNow();
+        }
+        peak.accumulateAndGet(usedHeapAfterGc(), Math::max);
+        LOGGER.info("Sent {} requests, answered {}; after a collection, {} bytes of heap were in use before them and at most {} bytes as they ran",
+                REQUESTS, statuses, before, peak.get());
+
+        // Then most requests are served, none failing with a server error, and the heap left after a collection stays
+        // within the budget
+        final long ok = statuses.getOrDefault(200, new LongAdder()).sum();
+        assertTrue(ok + " of " + REQUESTS + " requests served", ok >= MIN_OK_SHARE * REQUESTS);
+        assertFalse(statuses.containsKey(500));
+        assertTrue(peak.get() + " bytes in use", peak.get() < HEAP_BUDGET);
+    }
+
+    // Mostly searches and single reads, with some pages, the skill list and streamed searches for rarer skills
+    private String path(int request, Random random) {
+        final String skill = BenchmarkApplication.skillName(1 + random.nextInt(50)).replace(" ", "%20");
+        switch (request % 20) {
+            case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+                return "/consultants?limit=100&skills=" + skill;
+            case 8: case 9: case 10:
+                return "/consultants?available&limit=100&skills=" + skill;
+            case 11: case 12: case 13: case 14: case 15:
+                return "/consultants/" + (1 + random.nextInt(CONSULTANTS));
+            case 16: case 17:
+                return "/consultants?limit=100&after=" + random.nextInt(CONSULTANTS);
+            case 18:
+                return "/skills";
+            default:
+                return "/consultants/stream?skills=" + BenchmarkApplication.skillName(500 + random.nextInt(SKILLS - 500))
+                        .replace(" ", "%20");
+        }
+    }
+
+    private void send(String path) throws Exception {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        try {
+            final int status = connection.getResponseCode();
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (body != null) {
+                    body.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,56 @@
+package integration.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1",
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.metrics.distribution.percentiles-histogram.http.server.requests=true"
+})
+public class MetricsEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void prometheus_AfterSearch_ShouldExposeEachLayer() throws Exception {
+        // Given a search has been made
+        final MvcResult search = mockMvc.perform(get("/consultants").param("skills", "Java"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        search.getAsyncResult(5_000);
+        mockMvc.perform(asyncDispatch(search))
+                .andExpect(status().isOk());
+
+        // When Prometheus scrapes the metrics
+        // Then the search is timed by handler with histogram buckets, along with the service, Hibernate, pool and JVM
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("http_server_requests_seconds_bucket{"),
+                        containsString("handler=\"ConsultantController.findConsultantsWithSkill\""),
+                        containsString("service_method_seconds_count{class=\"ConsultantService\",exception=\"none\",method=\"findConsultantsWithSkills\""),
+                        containsString("hibernate_statements_total"),
+                        containsString("hikaricp_connections"),
+                        containsString("jvm_memory_used_bytes"))));
+    }
+}
@@ -4,15 +4,19 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pa.spring.springcloud.SpringCloudApplication;
 import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.service.BatchItemResult;
 import com.pa.spring.springcloud.service.SkillService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -23,9 +27,14 @@ import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static unit.pa.spring.springcloud.util.Constants.Skills.C_SHARP;
 import static unit.pa.spring.springcloud.util.Constants.Skills.JAVA;
@@ -74,7 +83,7 @@ public class SkillControllerTest {
     @Test
     public void findSkills_NoSkills_ShouldReturnEmptyJSONArray() throws Exception {
         // Given we have no skills
-        when(service.findAll()).thenReturn(Collections.emptyList());
+        when(service.findAll(0L, 100)).thenReturn(Collections.emptyList());
 
         // When we request all skills
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -90,7 +99,7 @@ public class SkillControllerTest {
     @Test
     public void findSkills_SingleSkill_ShouldReturnJSONArray() throws Exception {
         // Given we have a single skill
-        when(service.findAll()).thenReturn(Collections.singletonList(JAVA));
+        when(service.findAll(0L, 100)).thenReturn(Collections.singletonList(JAVA));
 
         // When we request all skills
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -107,7 +116,7 @@ public class SkillControllerTest {
     @Test
     public void findSkills_MultipleSkills_ShouldReturnJSONArray() throws Exception {
         // Given we have multiple skills
-        when(service.findAll()).thenReturn(Arrays.asList(JAVA, C_SHARP));
+        when(service.findAll(0L, 100)).thenReturn(Arrays.asList(JAVA, C_SHARP));
 
         // When we request all skills
         final String response = mockMvc.perform(get(ENDPOINT))
@@ -286,4 +295,99 @@ public class SkillControllerTest {
                 .content(invalidRequestJSON))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findSkill_MatchingIfNoneMatch_Should304WithoutBody() throws Exception {
+        // Given we have a skill with id 1, at version 2
+        when(service.findById(1L)).thenReturn(Optional.of(new Skill(JAVA, 1L, 2)));
+
+        // When we request it with the ETag we were last sent
+        // Then we get a 304, without the skill
+        mockMvc.perform(get(ENDPOINT + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void findSkills_UnchangedTable_Should304WithoutQuerying() throws Exception {
+        // Given the skill table has not changed since we were sent its version
+        when(service.tableVersion()).thenReturn("epoch-3");
+
+        // When we request the skills with that version
+        // Then we get a 304, without the skills being loaded
+        mockMvc.perform(get(ENDPOINT).header(HttpHeaders.IF_NONE_MATCH, "\"epoch-3\""))
+                .andExpect(status().isNotModified());
+        verify(service, never()).findAll(anyLong(), anyInt());
+    }
+
+    @Test
+    public void createOrReplace_StaleIfMatch_Should412() throws Exception {
+        // Given the skill with id 1 has moved on to version 2
+        when(service.findById(1L)).thenReturn(Optional.of(new Skill(JAVA, 1L, 2)));
+
+        // When we replace it, on condition it is still at version 1
+        // Then we get a 412, and the skill is not saved
+        mockMvc.perform(put(ENDPOINT + "/1")
+                .header(HttpHeaders.IF_MATCH, "\"1-1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(C_SHARP)))
+                .andExpect(status().isPreconditionFailed());
+        verify(service, never()).save(any());
+    }
+
+    @Test
+    public void createOrReplace_MatchingIfMatch_ShouldReplaceThatVersion() throws Exception {
+        // Given the skill with id 1 is at version 1
+        when(service.findById(1L)).thenReturn(Optional.of(new Skill(JAVA, 1L, 1)));
+        when(service.save(Mockito.any(Skill.class))).thenReturn(new Skill(C_SHARP, 1L, 2));
+
+        // When we replace it, on condition it is still at version 1
+        mockMvc.perform(put(ENDPOINT + "/1")
+                .header(HttpHeaders.IF_MATCH, "\"1-1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(C_SHARP)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""));
+
+        // Then the replacement is saved against version 1, so a concurrent write would make it fail
+        final ArgumentCaptor<Skill> saved = ArgumentCaptor.forClass(Skill.class);
+        verify(service).save(saved.capture());
+        assertEquals(1L, saved.getValue().getVersion());
+    }
+
+    @Test
+    public void createOrReplace_WriteBetweenIfMatchAndSave_Should412() throws Exception {
+        // Given the skill with id 1 is at version 1, but another write lands before ours
+        when(service.findById(1L)).thenReturn(Optional.of(new Skill(JAVA, 1L, 1)));
+        when(service.save(Mockito.any(Skill.class))).thenThrow(new ObjectOptimisticLockingFailureException(Skill.class, 1L));
+
+        // When we replace it, on condition it is still at version 1
+        // Then we get a 412
+        mockMvc.perform(put(ENDPOINT + "/1")
+                .header(HttpHeaders.IF_MATCH, "\"1-1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(C_SHARP)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void createBatch_MixedItems_ShouldReturnOutcomeOfEachItem() throws Exception {
+        // Given the second of two skills is rejected
+        when(service.saveAll(anyList())).thenReturn(Arrays.asList(BatchItemResult.created(0, 1L),
+                BatchItemResult.rejected(1, "name must not be empty")));
+
+        // When we post both skills as a batch
+        mockMvc.perform(post(ENDPOINT + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(JAVA, C_SHARP))))
+                .andExpect(status().isOk())
+                // Then we get the outcome of each skill, in the order they were posted
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].error").value("name must not be empty"));
+    }
+}
@@ -0,0 +1,40 @@
+package integration.pa.spring.springcloud.controller;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+        "management.endpoints.web.exposure.include=startup"
+})
+public class StartupEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void startup_AfterStart_ShouldListPhasesAndSlowBeans() throws Exception {
+        // When we read the startup timeline
+        // Then it has each phase of the start, and the EntityManagerFactory among the beans that took time to create
+        mockMvc.perform(get("/actuator/startup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.startedMillis").value(greaterThan(0.0)))
+                .andExpect(jsonPath("$.steps[*].name").value(hasItems("jvm.start", "environment.prepare",
+                        "context.prepare", "context.refresh", "runners", "bean.entityManagerFactory")));
+    }
+}
@@ -0,0 +1,90 @@
+package integration.pa.spring.springcloud.repository;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.repository.ConsultantRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest()
+@ContextConfiguration(classes = SpringCloudApplication.class)
+public class AvailableConsultantQueryBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AvailableConsultantQueryBenchmarkTest.class);
+    private static final int CONSULTANTS = Integer.getInteger("benchmark.consultants", 10_000);
+    private static final int AVAILABLE_EVERY = 10;
+
+    @Autowired
+    private ConsultantRepository consultantRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private DataSource dataSource;
+
+    @Before
+    public void setUp() {
+        // Every consultant knows Java, and only one in ten is without an assignment
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO assignment (id, name) values(1, 'Rentokil')");
+        jdbcTemplate.update("INSERT INTO skill (id, name, description) values(1, 'Java', 'Programming language')");
+        jdbcTemplate.batchUpdate("INSERT INTO consultant (id, full_name, email, assignment_id) values (?, ?, ?, ?)",
+                IntStream.rangeClosed(1, CONSULTANTS)
+                        .mapToObj(id -> new Object[]{id, "Consultant " + id, "consultant" + id + "@example.com",
+                                id % AVAILABLE_EVERY == 0 ? null : 1})
+                        .collect(Collectors.toList()));
+        jdbcTemplate.batchUpdate("INSERT INTO consultant_skills (consultant_id, skills_id) values (?, 1)",
+                IntStream.rangeClosed(1, CONSULTANTS)
+                        .mapToObj(id -> new Object[]{id})
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findIdsAvailableWithAnySkill_MostlyAssignedConsultants_OnlyReadsAvailableConsultants() {
+        // When we find the available Java consultants by filtering in memory, and then in the database
+        final long before = consultantsLoaded(() -> consultantRepository.findDistinctByIdInOrderById(
+                consultantRepository.findIdsWithAnySkill(Set.of("java"), 0L, Pageable.unpaged())).stream()
+                .filter(Consultant::isAvailable)
+                .collect(Collectors.toList()));
+        final List<Long> available = consultantRepository.findIdsAvailableWithAnySkill(Set.of("java"), 0L, Pageable.unpaged());
+        final long after = consultantsLoaded(() -> consultantRepository.findDistinctByIdInOrderById(
+                consultantRepository.findIdsAvailableWithAnySkill(Set.of("java"), 0L, Pageable.unpaged())));
+        LOGGER.info("{} available of {} consultants: {} rows read filtering in memory, {} rows read filtering in the database",
+                available.size(), CONSULTANTS, before, after);
+
+        // Then the database query only reads the consultants it returns
+        assertEquals(CONSULTANTS / AVAILABLE_EVERY, available.size());
+        assertEquals(available.size(), after);
+        assertTrue(before >= CONSULTANTS);
+    }
+
+    private long consultantsLoaded(Supplier<List<Consultant>> query) {
+        final Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+        query.get();
+        return statistics.getEntityStatistics(Consultant.class.getName()).getLoadCount();
+    }
+}
@@ -5,6 +5,8 @@ import com.pa.spring.springcloud.model.Assignment;
 import com.pa.spring.springcloud.model.Consultant;
 import com.pa.spring.springcloud.model.Skill;
 import com.pa.spring.springcloud.repository.ConsultantRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -12,12 +14,17 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -97,4 +104,160 @@ public class ConsultantRepositoryTest {
         // Then we find no consultants (empty list)
         assertEquals(0, found.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findIdsWithAnySkill_MultipleSkills_FindsConsultantsWithAnySkill() {
+        // Given there are three consultants, with Java, Spring and Java, and C# skills
+        entityManager.persist(JAVA_CONSULTANT);
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.persist(C_SHARP_CONSULTANT);
+        entityManager.flush();
+
+        // When we find all consultants with either the Spring or C# skill
+        final List<Long> found = consultantRepository.findIdsWithAnySkill(Set.of("spring", "c#"), 0L, Pageable.unpaged());
+
+        // Then we find the Spring and C# consultants once each
+        assertEquals(2, found.size());
+        assertTrue(found.containsAll(Arrays.asList(SPRING_JAVA_CONSULTANT.getId(), C_SHARP_CONSULTANT.getId())));
+    }
+
+    @Test
+    public void findIdsWithAllSkills_MultipleSkills_FindsConsultantsWithEverySkill() {
+        // Given there are three consultants, with Java, Spring and Java, and C# skills
+        entityManager.persist(JAVA_CONSULTANT);
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.persist(C_SHARP_CONSULTANT);
+        entityManager.flush();
+
+        // When we find all consultants with both the Java and Spring skills
+        final List<Long> found = consultantRepository.findIdsWithAllSkills(Set.of("java", "spring"), 2, 0L, Pageable.unpaged());
+
+        // Then we find only the consultant with both skills
+        assertEquals(Collections.singletonList(SPRING_JAVA_CONSULTANT.getId()), found);
+    }
+
+    @Test
+    public void findIdsAvailableWithAnySkill_MultipleConsultants_FindsOnlyAvailableConsultants() {
+        // Given there are two Java consultants, only one of which is available
+        entityManager.persist(JAVA_CONSULTANT);
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.persist(C_SHARP_CONSULTANT);
+        entityManager.flush();
+
+        // When we find all available consultants with the Java skill
+        final List<Long> found = consultantRepository.findIdsAvailableWithAnySkill(Set.of("java"), 0L, Pageable.unpaged());
+
+        // Then we find only the available Java consultant
+        assertEquals(Collections.singletonList(SPRING_JAVA_CONSULTANT.getId()), found);
+    }
+
+    @Test
+    public void findIdsAvailableWithAllSkills_AssignedConsultantWithAllSkills_IsNotFound() {
+        // Given the only consultant with the C# skill is assigned
+        entityManager.persist(C_SHARP_CONSULTANT);
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.flush();
+
+        // When we find all available consultants with the C# skill
+        final List<Long> found = consultantRepository.findIdsAvailableWithAllSkills(Set.of("c#"), 1, 0L, Pageable.unpaged());
+
+        // Then we find no consultants
+        assertEquals(0, found.size());
+    }
+
+    @Test
+    public void findIdsWithAnySkill_MoreSkills_DoesNotIssueMoreStatements() {
+        // Given there are three consultants, with Java, Spring and Java, and C# skills
+        entityManager.persist(JAVA_CONSULTANT);
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.persist(C_SHARP_CONSULTANT);
+        entityManager.flush();
+
+        // When we search by one skill, and then by three skills
+        final long singleSkillStatements = countStatements(() -> consultantRepository.findIdsWithAnySkill(Set.of("java"), 0L, Pageable.unpaged()));
+        final long threeSkillStatements = countStatements(() -> consultantRepository.findIdsWithAnySkill(Set.of("java", "spring", "c#"), 0L, Pageable.unpaged()));
+
+        // Then both searches issue the same number of SQL statements
+        assertEquals(singleSkillStatements, threeSkillStatements);
+    }
+
+    private long countStatements(Runnable query) {
+        final Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+        query.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    public void findIdsAfter_AfterAndLimit_ReturnsNextPageInIdOrder() {
+        // Given there are three consultants
+        entityManager.persist(JAVA_CONSULTANT);
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.persist(C_SHARP_CONSULTANT);
+        entityManager.flush();
+
+        // When we fetch the first page of two, and then the page after it
+        final List<Long> firstPage = consultantRepository.findIdsAfter(0L, PageRequest.of(0, 2));
+        final List<Long> secondPage = consultantRepository.findIdsAfter(firstPage.get(1), PageRequest.of(0, 2));
+
+        // Then the pages hold every consultant once, in id order
+        assertEquals(Arrays.asList(JAVA_CONSULTANT.getId(), SPRING_JAVA_CONSULTANT.getId()), firstPage);
+        assertEquals(Collections.singletonList(C_SHARP_CONSULTANT.getId()), secondPage);
+    }
+
+    @Test
+    public void findIdsWithAnySkill_AfterAndLimit_ReturnsNextPageInIdOrder() {
+        // Given there are two Java consultants
+        entityManager.persist(JAVA_CONSULTANT);
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.flush();
+
+        // When we fetch the Java consultants one at a time
+        final List<Long> firstPage = consultantRepository.findIdsWithAnySkill(Set.of("java"), 0L, PageRequest.of(0, 1));
+        final List<Long> secondPage = consultantRepository.findIdsWithAnySkill(Set.of("java"), firstPage.get(0), PageRequest.of(0, 1));
+
+        // Then each page holds the next consultant
+        assertEquals(Collections.singletonList(JAVA_CONSULTANT.getId()), firstPage);
+        assertEquals(Collections.singletonList(SPRING_JAVA_CONSULTANT.getId()), secondPage);
+    }
+
+    @Test
+    public void findDistinctByIdIn_ConsultantsWithSeveralSkills_LoadsEachOnceWithSkillsInOneStatement() {
+        // Given there are three consultants, one of whom has two skills
+        entityManager.persist(JAVA_CONSULTANT);
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.persist(C_SHARP_CONSULTANT);
+        entityManager.flush();
+        final List<Long> ids = Arrays.asList(JAVA_CONSULTANT.getId(), SPRING_JAVA_CONSULTANT.getId(), C_SHARP_CONSULTANT.getId());
+
+        // When we load the consultants by id and read their skills and assignments
+        final AtomicReference<List<Consultant>> found = new AtomicReference<>();
+        final long statements = countStatements(() -> {
+            found.set(consultantRepository.findDistinctByIdInOrderById(ids));
+            found.get().forEach(consultant -> {
+                consultant.getSkills().size();
+                Optional.ofNullable(consultant.getAssignment()).map(Assignment::getName);
+            });
+        });
+
+        // Then each consultant is returned once, in id order, by a single statement
+        assertEquals(Arrays.asList(JAVA_CONSULTANT, SPRING_JAVA_CONSULTANT, C_SHARP_CONSULTANT), found.get());
+        assertEquals(1, statements);
+    }
+
+    @Test
+    public void findById_ConsultantWithSkills_LoadsSkillsInOneStatement() {
+        // Given there is a consultant with two skills
+        entityManager.persist(SPRING_JAVA_CONSULTANT);
+        entityManager.flush();
+
+        // When we find the consultant by id and read their skills
+        final long statements = countStatements(() -> consultantRepository.findById(SPRING_JAVA_CONSULTANT.getId())
+                .ifPresent(consultant -> consultant.getSkills().size()));
+
+        // Then the consultant and their skills are loaded by a single statement
+        assertEquals(1, statements);
+    }
+}
@@ -0,0 +1,91 @@
+package integration.pa.spring.springcloud.repository;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import com.pa.spring.springcloud.service.SkillService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// The replica is the primary's own in-memory database opened through a second pool, standing in for one that is
+// replicated without lag, so the routing can be told apart by which pool hands out the connection
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1",
+        "replica.datasource.url=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1",
+        "replica.max-lag=0ms",
+        "search.index.enabled=false"
+})
+public class ReplicaRoutingTest {
+    @Autowired
+    private SkillService skillService;
+    @Autowired
+    private SkillRepository skillRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @After
+    public void tearDown() {
+        skillRepository.deleteAll();
+    }
+
+    @Test
+    public void findById_AfterSave_ShouldWriteToPrimaryAndReadFromReplica() {
+        // Given the connections each pool has handed out
+        final long primaryBefore = acquired("primary");
+        final long replicaBefore = acquired("replica");
+
+        // When a skill is saved, then read back
+        final Skill skill = skillService.save(new Skill("Java", "Java programming language"));
+        final long primaryAfterSave = acquired("primary");
+        final long replicaAfterSave = acquired("replica");
+        final Skill found = skillService.findById(skill.getId()).orElseThrow(AssertionError::new);
+
+        // Then the save takes a connection from the primary, and the read one from the replica
+        assertTrue(primaryAfterSave > primaryBefore);
+        assertEquals(replicaBefore, replicaAfterSave);
+        assertEquals(primaryAfterSave, acquired("primary"));
+        assertTrue(acquired("replica") > replicaAfterSave);
+        assertEquals("Java programming language", found.getDescription());
+    }
+
+    @Test
+    public void readOnlyTransaction_EntityChanged_ShouldNotBeFlushed() {
+        // Given a skill, which has no setters, as it is only ever replaced whole
+        final Skill skill = skillService.save(new Skill("Java", "Java programming language"));
+
+        // When it is changed within a read-only transaction
+        final TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.execute(status -> {
+            final Skill managed = skillRepository.findById(skill.getId()).orElseThrow(AssertionError::new);
+            ReflectionTestUtils.setField(managed, "description", "JVM language");
+            return null;
+        });
+
+        // Then the change is never written
+        assertEquals("Java programming language",
+                skillService.findById(skill.getId()).orElseThrow(AssertionError::new).getDescription());
+    }
+
+    private long acquired(String pool) {
+        final Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,95 @@
+package integration.pa.spring.springcloud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import com.pa.spring.springcloud.service.BatchItemResult;
+import com.pa.spring.springcloud.service.SkillService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batchinserter;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "batch.chunk-size=50"
+})
+public class BatchInserterTest {
+    @Autowired
+    private SkillService skillService;
+    @Autowired
+    private SkillRepository skillRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @After
+    public void tearDown() {
+        skillRepository.deleteAll();
+    }
+
+    @Test
+    public void saveAll_DuplicateAndInvalidSkills_RejectsOnlyThoseSkills() throws Exception {
+        // Given a batch where the third skill duplicates the first, and the fifth has no name
+        final List<Skill> skills = Arrays.asList(skill("Java"), skill("Spring"), skill("Java"), skill("C#"), skill(""));
+
+        // When we save the batch
+        final List<BatchItemResult> results = skillService.saveAll(skills);
+
+        // Then every other skill is created, despite sharing a chunk with the duplicate
+        assertEquals(Arrays.asList(BatchItemResult.Status.CREATED, BatchItemResult.Status.CREATED,
+                BatchItemResult.Status.REJECTED, BatchItemResult.Status.CREATED, BatchItemResult.Status.REJECTED),
+                results.stream().map(BatchItemResult::getStatus).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), results.stream().map(BatchItemResult::getIndex).collect(Collectors.toList()));
+        assertNotNull(results.get(3).getId());
+        assertTrue(results.get(4).getError().startsWith("name "));
+        assertEquals(3, skillRepository.count());
+        assertTrue(skillRepository.findById(results.get(3).getId()).isPresent());
+    }
+
+    @Test
+    public void saveAll_ManySkills_BatchesInserts() throws Exception {
+        // Given a batch of 100 valid skills
+        final List<Skill> skills = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            skills.add(skill("Skill " + i));
+        }
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When we save the batch
+        final List<BatchItemResult> results = skillService.saveAll(skills);
+
+        // Then they are all created, with a handful of statements rather than one per skill
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BatchItemResult.Status.CREATED));
+        assertEquals(100, skillRepository.count());
+        assertTrue(statistics.getPrepareStatementCount() < 10);
+    }
+
+    // Deserialised as the endpoints would, since the Skill constructor refuses an empty name
+    private Skill skill(String name) throws IOException {
+        return objectMapper.readValue("{\"name\": \"" + name + "\", \"description\": \"Batch skill\"}", Skill.class);
+    }
+}
@@ -0,0 +1,103 @@
+package integration.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.service.ConsultantImporter;
+import com.pa.spring.springcloud.service.ImportFormat;
+import com.pa.spring.springcloud.service.ImportReport;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Imports a generated file the size HR hands over, sampling the heap as each chunk is written. Run by the heap profile in
+// a JVM of its own with the heap the application is deployed with, so it passes only if the import completes within
+// it: mvn -P heap test
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SpringCloudApplication.class)
+@ActiveProfiles({"prod", "lowmem"})
+@TestPropertySource(properties = {
+        // The page store sizes its cache in KB, where the MVStore's is at least a megabyte of this heap
+        "spring.datasource.url=jdbc:h2:file:./target/h2/consultant-import;MV_STORE=FALSE;CACHE_SIZE=64",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "search.index.enabled=false"
+})
+public class ConsultantImportHeapTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsultantImportHeapTest.class);
+    private static final int CONSULTANTS = Integer.getInteger("import.consultants", 1_000_000);
+    private static final long SAMPLE_EVERY = 100_000;
+    // Matches the -Xmx32m the application is deployed with in app.yaml
+    private static final long PRODUCTION_HEAP_LIMIT = 32L * 1024 * 1024;
+
+    @Autowired
+    private ConsultantImporter consultantImporter;
+    @Autowired
+    private DataSource dataSource;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final Path file = Paths.get("target", "consultant-import.csv");
+
+    @Before
+    public void setUp() throws Exception {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO assignment (id, name) values(1, 'Rentokil')");
+        jdbcTemplate.update("INSERT INTO skill (id, name, description) values(1, 'Java', 'Programming language')");
+        jdbcTemplate.update("INSERT INTO skill (id, name, description) values(2, 'Spring', 'Spring Framework')");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("fullName,email,assignment,skills\n");
+            for (int id = 1; id <= CONSULTANTS; id++) {
+                writer.write("Consultant " + id + ",consultant" + id + "@example.com,"
+                        + (id % 2 == 0 ? "" : "Rentokil") + "," + (id % 3 == 0 ? "Java;Spring" : "Java") + "\n");
+            }
+        }
+    }
+
+    @Test
+    public void importFrom_ManyConsultants_ShouldCompleteWithinProductionHeapLimit() throws Exception {
+        // Given a heap no larger than production's
+        assertTrue("Run with -Xmx32m: mvn -P heap test", Runtime.getRuntime().maxMemory() <= PRODUCTION_HEAP_LIMIT);
+
+        // When we import the whole file, sampling the heap as it is written
+        final long[] peak = {usedHeapAfterGc()};
+        final ImportReport report;
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+            report = consultantImporter.importFrom(inputStream, ImportFormat.CSV, progress -> {
+                if (progress.getRows() % SAMPLE_EVERY == 0) {
+                    peak[0] = Math.max(peak[0], usedHeapAfterGc());
+                }
+            });
+        }
+        LOGGER.info("Imported {}, with at most {} bytes of heap in use", report, peak[0]);
+
+        // Then every consultant is created
+        assertEquals(CONSULTANTS, report.getCreated());
+        assertEquals(CONSULTANTS, new JdbcTemplate(dataSource).queryForObject("SELECT count(*) FROM consultant", Long.class).longValue());
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
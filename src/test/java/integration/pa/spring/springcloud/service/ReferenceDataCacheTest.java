@@ -0,0 +1,120 @@
+package integration.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.AssignmentRepository;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import com.pa.spring.springcloud.service.SkillService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Reads and writes in separate transactions, as the second-level cache is only updated on commit
+@SpringBootTest(classes = SpringCloudApplication.class)
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:referencedatacache;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+        "spring.jpa.properties.hibernate.cache.region_prefix=reference-data-cache-test"
+})
+public class ReferenceDataCacheTest {
+    @Autowired
+    private SkillService skillService;
+    @Autowired
+    private SkillRepository skillRepository;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Skill java;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        java = skillService.save(new Skill("Java", "Java programming language"));
+    }
+
+    @After
+    public void tearDown() {
+        skillRepository.deleteAll();
+        assignmentRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void findById_SecondRead_IsServedFromCache() {
+        // Given the skill has been read once
+        skillService.findById(java.getId());
+        statistics.clear();
+
+        // When we read it again
+        final Optional<Skill> skill = skillService.findById(java.getId());
+
+        // Then it comes from the cache, without a statement
+        assertEquals(Optional.of(java), skill);
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findByName_SecondQuery_IsServedFromQueryCache() {
+        // Given the assignment has been found by name once
+        final Assignment rentokil = assignmentRepository.save(new Assignment("Rentokil"));
+        assignmentRepository.findByName("Rentokil");
+        statistics.clear();
+
+        // When we find it by name again
+        final Optional<Assignment> assignment = assignmentRepository.findByName("Rentokil");
+
+        // Then the query and the assignment both come from the cache, without a statement
+        assertEquals(Optional.of(rentokil), assignment);
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void save_CachedSkill_ReadsUpdatedSkill() {
+        // Given the skill and a query by its name are cached
+        skillService.findById(java.getId());
+        skillRepository.findByNameLikeIgnoreCase("java");
+
+        // When we rename the skill
+        skillService.save(new Skill(new Skill("Kotlin", "Kotlin programming language"), java.getId()));
+
+        // Then reads see the new name, and the cached query no longer finds the old one
+        assertEquals("Kotlin", skillService.findById(java.getId()).map(Skill::getName).orElse(null));
+        assertFalse(skillRepository.findByNameLikeIgnoreCase("java").isPresent());
+        assertTrue(skillRepository.findByNameLikeIgnoreCase("kotlin").isPresent());
+    }
+
+    @Test
+    public void delete_CachedSkill_IsNoLongerFound() {
+        // Given the skill is cached
+        skillService.findById(java.getId());
+
+        // When we delete the skill
+        skillService.delete(java);
+
+        // Then it is no longer found
+        assertFalse(skillService.findById(java.getId()).isPresent());
+    }
+}
@@ -0,0 +1,121 @@
+package integration.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.SpringCloudApplication;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.service.SkillService;
+import com.pa.spring.springcloud.service.SyntheticDataGenerator;
+import com.pa.spring.springcloud.service.SyntheticDataSpec;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SpringCloudApplication.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:synthetic-data;DB_CLOSE_DELAY=-1",
+        "search.index.enabled=false"
+})
+public class SyntheticDataGeneratorTest {
+    @Autowired
+    private SyntheticDataGenerator syntheticDataGenerator;
+    @Autowired
+    private SkillService skillService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SyntheticDataSpec spec = new SyntheticDataSpec();
+
+    @Before
+    public void setUp() {
+        spec.setConsultants(2_000);
+        spec.setSkills(100);
+        spec.setAssignments(10);
+        spec.setMinSkillsPerConsultant(2);
+        spec.setMaxSkillsPerConsultant(4);
+        spec.setAssignedShare(0.5);
+    }
+
+    @Test
+    public void generate_Spec_ShouldMatchCountsAndSkew() {
+        // Given a generated dataset
+        syntheticDataGenerator.generate(spec);
+
+        // When we find where its rows start
+        final long firstSkill = firstGenerated("skill", spec.getSkills());
+        final long firstConsultant = firstGenerated("consultant", spec.getConsultants());
+
+        // Then the counts, skills per consultant and assigned share are as asked for
+        assertEquals(2_000L, count("consultant WHERE id >= " + firstConsultant));
+        assertEquals(100L, count("skill WHERE id >= " + firstSkill));
+        final List<Long> skillsPerConsultant = jdbcTemplate.queryForList("SELECT count(*) FROM consultant_skills "
+                + "WHERE consultant_id >= ? GROUP BY consultant_id", Long.class, firstConsultant);
+        assertEquals(2_000, skillsPerConsultant.size());
+        assertTrue(skillsPerConsultant.stream().allMatch(skills -> skills >= 2 && skills <= 4));
+        final long assigned = count("consultant WHERE assignment_id IS NOT NULL AND id >= " + firstConsultant);
+        assertTrue(assigned > 900 && assigned < 1_100);
+
+        // And the first skill is far more popular than one from the middle
+        assertTrue(holders(firstSkill) > 10 * holders(firstSkill + 50));
+    }
+
+    @Test
+    public void generate_SameSeedTwice_ShouldGenerateTheSameStructure() {
+        // Given two datasets generated from the same spec
+        syntheticDataGenerator.generate(spec);
+        final long firstSkill = firstGenerated("skill", spec.getSkills());
+        final long firstConsultant = firstGenerated("consultant", spec.getConsultants());
+        syntheticDataGenerator.generate(spec);
+        final long secondSkill = firstGenerated("skill", spec.getSkills());
+        final long secondConsultant = firstGenerated("consultant", spec.getConsultants());
+
+        // When we read back which skill ranks each consultant holds
+        final List<String> first = structure(firstConsultant, firstSkill, secondConsultant);
+        final List<String> second = structure(secondConsultant, secondSkill, Long.MAX_VALUE);
+
+        // Then they are the same
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void save_AfterGenerate_ShouldNotCollideWithGeneratedIds() {
+        // Given a generated dataset
+        syntheticDataGenerator.generate(spec);
+
+        // When we save a skill through JPA
+        final Skill skill = skillService.save(new Skill("Synthetic neighbour", "Saved after generating"));
+
+        // Then it gets an id past the generated skills
+        assertNotNull(skill.getId());
+        assertEquals(1L, count("skill WHERE id = " + skill.getId()));
+    }
+
+    // Generated rows always take the highest ids
+    private long firstGenerated(String table, int rows) {
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class) - rows + 1;
+    }
+
+    private long count(String from) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + from, Long.class);
+    }
+
+    private long holders(long skill) {
+        return count("consultant_skills WHERE skills_id = " + skill);
+    }
+
+    private List<String> structure(long fromConsultant, long firstSkill, long toConsultant) {
+        return jdbcTemplate.queryForList("SELECT (consultant_id - ?) || ':' || (skills_id - ?) FROM consultant_skills "
+                        + "WHERE consultant_id >= ? AND consultant_id < ? ORDER BY consultant_id, skills_id",
+                String.class, fromConsultant, firstSkill, fromConsultant, toConsultant);
+    }
+}
@@ -0,0 +1,29 @@
+package integration.pa.spring.springcloud.util;
+
+import com.pa.spring.springcloud.controller.QueryStatisticsFilter;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+// Asserts on the statements a request ran, from the headers query-statistics.headers adds in the tests
+public final class QueryCount {
+    private QueryCount() {
+    }
+
+    public static ResultMatcher atMost(long statements) {
+        return result -> {
+            final String count = result.getResponse().getHeader(QueryStatisticsFilter.QUERY_COUNT);
+            assertNotNull("No " + QueryStatisticsFilter.QUERY_COUNT + " header; is query-statistics.headers on?", count);
+            assertTrue("Ran " + count + " statements, expected at most " + statements, Long.parseLong(count) <= statements);
+        };
+    }
+
+    public static ResultMatcher atLeast(long statements) {
+        return result -> {
+            final String count = result.getResponse().getHeader(QueryStatisticsFilter.QUERY_COUNT);
+            assertNotNull("No " + QueryStatisticsFilter.QUERY_COUNT + " header; is query-statistics.headers on?", count);
+            assertTrue("Ran " + count + " statements, expected at least " + statements, Long.parseLong(count) >= statements);
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package loadtest.pa.spring.springcloud;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// The outcome of a load run, written as JSON so runs can be compared; latencies are in milliseconds
+public class LoadReport {
+    private final Map<String, Object> configuration;
+    private final double durationSeconds;
+    private final Summary overall;
+    private final Map<String, Summary> operations = new LinkedHashMap<>();
+
+    LoadReport(Map<String, Object> configuration, double durationSeconds, Summary overall) {
+        this.configuration = configuration;
+        this.durationSeconds = durationSeconds;
+        this.overall = overall;
+    }
+
+    void add(Operation operation, Summary summary) {
+        operations.put(operation.getKey(), summary);
+    }
+
+    public Map<String, Object> getConfiguration() {
+        return configuration;
+    }
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public Summary getOverall() {
+        return overall;
+    }
+
+    public Map<String, Summary> getOperations() {
+        return operations;
+    }
+
+    public static class Summary {
+        private final long requests;
+        private final long errors;
+        private final double throughput;
+        private final Map<Integer, Long> statuses;
+        private final Map<String, Double> latency;
+        private final Map<String, Double> servedLatency;
+
+        // Status 0 counts requests that got no response at all; served latency only covers responses below 400
+        Summary(Histogram histogram, Histogram served, Map<Integer, Long> statuses, double durationSeconds) {
+            this.statuses = new TreeMap<>(statuses);
+            this.requests = statuses.values().stream().mapToLong(Long::longValue).sum();
+            this.errors = statuses.entrySet().stream()
+                    .filter(status -> status.getKey() < 200 || status.getKey() >= 400)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            this.throughput = requests / durationSeconds;
+            this.latency = percentiles(histogram);
+            this.servedLatency = percentiles(served);
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getErrorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public Map<Integer, Long> getStatuses() {
+            return statuses;
+        }
+
+        public Map<String, Double> getLatency() {
+            return latency;
+        }
+
+        public Map<String, Double> getServedLatency() {
+            return servedLatency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %.1f/s, %.2f%% errors, latency %s ms, served %s ms", requests, throughput,
+                    getErrorRate() * 100, latency, servedLatency);
+        }
+
+        private static Map<String, Double> percentiles(Histogram histogram) {
+            final Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", millis(histogram.getValueAtPercentile(50)));
+            percentiles.put("p95", millis(histogram.getValueAtPercentile(95)));
+            percentiles.put("p99", millis(histogram.getValueAtPercentile(99)));
+            percentiles.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            percentiles.put("max", millis(histogram.getMaxValue()));
+            percentiles.put("mean", histogram.getTotalCount() == 0 ? 0 : histogram.getMean() / 1000);
+            return percentiles;
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package loadtest.pa.spring.springcloud;
+
+import benchmark.pa.spring.springcloud.BenchmarkApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pa.spring.springcloud.service.SyntheticDataSpec;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+// Starts the application on Jetty with a generated dataset and sends it a mix of requests at a fixed arrival rate,
+// whether or not earlier ones have been answered. Latency is measured from when each request was due to be sent, so a
+// stalled server shows up in the percentiles rather than slowing the load down. Configured by system properties:
+// loadtest.rate (requests/s), loadtest.duration and loadtest.warmup (s), loadtest.mix (operation:weight,...),
+// loadtest.consultants, loadtest.skills, loadtest.seed, loadtest.maxInFlight, loadtest.profiles (comma separated, e.g.
+// virtual-threads to compare with the platform thread pool) and loadtest.report (JSON file). Any other system property,
+// like concurrency-limit.enabled, is read by the application itself
+public final class LoadRunner {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final int rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Map<Operation, Integer> mix;
+    private final int maxInFlight;
+    private final String[] profiles;
+    private final Random random;
+    private final Operation.Dataset dataset;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Histogram overall = new ConcurrentHistogram(3);
+    private final Histogram overallServed = new ConcurrentHistogram(3);
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> servedLatencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Integer, LongAdder>> statuses = new EnumMap<>(Operation.class);
+
+    LoadRunner(int rate, Duration duration, Duration warmup, Map<Operation, Integer> mix, int maxInFlight,
+               String[] profiles, long seed, Operation.Dataset dataset) {
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.mix = mix;
+        this.maxInFlight = maxInFlight;
+        this.profiles = profiles;
+        this.random = new Random(seed);
+        this.dataset = dataset;
+        for (Operation operation : mix.keySet()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            servedLatencies.put(operation, new ConcurrentHistogram(3));
+            statuses.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final SyntheticDataSpec spec = new SyntheticDataSpec();
+        spec.setConsultants(Integer.getInteger("loadtest.consultants", 20_000));
+        spec.setSkills(Integer.getInteger("loadtest.skills", 500));
+        spec.setSeed(Long.getLong("loadtest.seed", 42));
+        final Map<Operation, Integer> mix = mix(System.getProperty("loadtest.mix",
+                "search:40,available:20,findById:30,create:5,replaceSkill:5"));
+        final LoadRunner loadRunner = new LoadRunner(Integer.getInteger("loadtest.rate", 200),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 60)),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup", 10)),
+                mix, Integer.getInteger("loadtest.maxInFlight", 1_000),
+                Arrays.stream(System.getProperty("loadtest.profiles", "").split(","))
+                        .map(String::trim)
+                        .filter(profile -> !profile.isEmpty())
+                        .toArray(String[]::new),
+                spec.getSeed(),
+                new Operation.Dataset(spec.getConsultants(), spec.getSkills()));
+        final Path reportFile = Paths.get(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+
+        final LoadReport report;
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start("load-test",
+                WebApplicationType.SERVLET, true, spec, loadRunner.profiles)) {
+            final int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            report = loadRunner.run(URI.create("http://localhost:" + port), spec);
+        }
+        System.out.println("Overall      " + report.getOverall());
+        report.getOperations().forEach((operation, summary) ->
+                System.out.println(String.format("%-12s %s", operation, summary)));
+        if (reportFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        }
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    LoadReport run(URI base, SyntheticDataSpec spec) throws InterruptedException {
+        final Operation[] operations = mix.keySet().toArray(new Operation[0]);
+        final int[] cumulativeWeights = new int[operations.length];
+        int totalWeight = 0;
+        for (int index = 0; index < operations.length; index++) {
+            totalWeight += mix.get(operations[index]);
+            cumulativeWeights[index] = totalWeight;
+        }
+
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        final long measureFrom = start + warmup.toNanos();
+        final long end = measureFrom + duration.toNanos();
+        for (long sequence = 0; ; sequence++) {
+            final long due = start + sequence * interval;
+            if (due >= end) {
+                break;
+            }
+            waitUntil(due);
+            final Operation operation = pick(operations, cumulativeWeights, random.nextInt(totalWeight));
+            final HttpRequest request = operation.request(base, random, dataset, sequence).timeout(REQUEST_TIMEOUT).build();
+            final boolean measured = due >= measureFrom;
+            // Past the limit the server is already too far behind, and the request is counted as unanswered
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    record(operation, 0, due);
+                }
+                continue;
+            }
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                inFlight.release();
+                if (measured) {
+                    record(operation, error == null ? response.statusCode() : 0, due);
+                }
+            });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            System.out.println((maxInFlight - inFlight.availablePermits()) + " requests still unanswered after the run");
+        }
+
+        final double durationSeconds = duration.toMillis() / 1000.0;
+        final LoadReport report = new LoadReport(configuration(spec), durationSeconds,
+                new LoadReport.Summary(overall, overallServed, total(statuses.values()), durationSeconds));
+        latencies.forEach((operation, histogram) -> report.add(operation, new LoadReport.Summary(histogram,
+                servedLatencies.get(operation), counts(statuses.get(operation)), durationSeconds)));
+        return report;
+    }
+
+    // Unanswered requests are counted, but have no latency to record; requests refused with a 503 are quick to answer,
+    // so latencies are also kept for those that were actually served
+    private void record(Operation operation, int status, long due) {
+        statuses.get(operation).computeIfAbsent(status, key -> new LongAdder()).increment();
+        if (status != 0) {
+            final long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due);
+            latencies.get(operation).recordValue(micros);
+            overall.recordValue(micros);
+            if (status < 400) {
+                servedLatencies.get(operation).recordValue(micros);
+                overallServed.recordValue(micros);
+            }
+        }
+    }
+
+    private Map<String, Object> configuration(SyntheticDataSpec spec) {
+        final Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("rate", rate);
+        configuration.put("durationSeconds", duration.getSeconds());
+        configuration.put("warmupSeconds", warmup.getSeconds());
+        configuration.put("maxInFlight", maxInFlight);
+        configuration.put("mix", mix.entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().getKey(), Map.Entry::getValue,
+                        (first, second) -> first, LinkedHashMap::new)));
+        configuration.put("dataset", spec.toString());
+        configuration.put("profiles", profiles);
+        configuration.put("concurrencyLimitEnabled", Boolean.parseBoolean(System.getProperty("concurrency-limit.enabled", "true")));
+        configuration.put("javaVersion", System.getProperty("java.version"));
+        return configuration;
+    }
+
+    private static Operation pick(Operation[] operations, int[] cumulativeWeights, int draw) {
+        int index = 0;
+        while (draw >= cumulativeWeights[index]) {
+            index++;
+        }
+        return operations[index];
+    }
+
+    private static void waitUntil(long due) {
+        for (long remaining = due - System.nanoTime(); remaining > 0; remaining = due - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    static Map<Operation, Integer> mix(String mix) {
+        final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            final String[] operationAndWeight = entry.trim().split(":");
+            final int weight = Integer.parseInt(operationAndWeight[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.forKey(operationAndWeight[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight: " + mix);
+        }
+        return weights;
+    }
+
+    private static Map<Integer, Long> counts(Map<Integer, LongAdder> statuses) {
+        return statuses.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+    }
+
+    private static Map<Integer, Long> total(Iterable<Map<Integer, LongAdder>> statuses) {
+        final Map<Integer, Long> total = new LinkedHashMap<>();
+        for (Map<Integer, LongAdder> operationStatuses : statuses) {
+            counts(operationStatuses).forEach((status, count) -> total.merge(status, count, Long::sum));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,97 @@
+package loadtest.pa.spring.springcloud;
+
+import benchmark.pa.spring.springcloud.BenchmarkApplication;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// The requests a workload is mixed from, each drawn against the generated dataset
+public enum Operation {
+    SEARCH("search") {
+        @Override
+        HttpRequest.Builder request(URI base, Random random, Dataset dataset, long sequence) {
+            return HttpRequest.newBuilder(base.resolve("/consultants?limit=100&skills=" + skills(random, dataset)));
+        }
+    },
+    AVAILABLE("available") {
+        @Override
+        HttpRequest.Builder request(URI base, Random random, Dataset dataset, long sequence) {
+            return HttpRequest.newBuilder(base.resolve("/consultants?available&limit=100&skills=" + skills(random, dataset)));
+        }
+    },
+    STREAM_SEARCH("streamSearch") {
+        @Override
+        HttpRequest.Builder request(URI base, Random random, Dataset dataset, long sequence) {
+            return HttpRequest.newBuilder(base.resolve("/consultants/stream?skills=" + skills(random, dataset)));
+        }
+    },
+    FIND_BY_ID("findById") {
+        @Override
+        HttpRequest.Builder request(URI base, Random random, Dataset dataset, long sequence) {
+            return HttpRequest.newBuilder(base.resolve("/consultants/" + (1 + random.nextInt(dataset.consultants))));
+        }
+    },
+    CREATE("create") {
+        @Override
+        HttpRequest.Builder request(URI base, Random random, Dataset dataset, long sequence) {
+            return json(base.resolve("/consultants"), "POST", "{\"fullName\": \"Load Test " + sequence
+                    + "\", \"email\": \"load.test" + sequence + "@example.com\"}");
+        }
+    },
+    REPLACE_SKILL("replaceSkill") {
+        @Override
+        HttpRequest.Builder request(URI base, Random random, Dataset dataset, long sequence) {
+            final int skill = 1 + random.nextInt(dataset.skills);
+            return json(base.resolve("/skills/" + skill), "PUT", "{\"name\": \"" + BenchmarkApplication.skillName(skill)
+                    + "\", \"description\": \"Replaced by load test request " + sequence + "\"}");
+        }
+    };
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    abstract HttpRequest.Builder request(URI base, Random random, Dataset dataset, long sequence);
+
+    public static Operation forKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+
+    // One of the most popular skills and one from across them all, so searches match both many and few consultants
+    private static String skills(Random random, Dataset dataset) {
+        final String skills = BenchmarkApplication.skillName(1 + random.nextInt(Math.min(dataset.skills, 20))) + ","
+                + BenchmarkApplication.skillName(1 + random.nextInt(dataset.skills));
+        return URLEncoder.encode(skills, StandardCharsets.UTF_8);
+    }
+
+    private static HttpRequest.Builder json(URI uri, String method, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    // The size of the dataset the application was started with, which bounds the ids and skills requested
+    static final class Dataset {
+        private final int consultants;
+        private final int skills;
+
+        Dataset(int consultants, int skills) {
+            this.consultants = consultants;
+            this.skills = skills;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package loadtest.pa.spring.springcloud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Starts the packaged application as a process several times, as the JVM jar and, when they have been built, as the
+// native executable and from the AppCDS archive, and records how long each takes to start and to answer its first
+// GET /skills, and its resident memory (Linux only) once it has. Takes the jar, the executable, the number of runs,
+// the JSON report file and, optionally, the directory the appcds profile builds the archive in as arguments
+public final class StartupComparison {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Pattern PORT = Pattern.compile("Jetty started on port\\(s\\) (\\d+)");
+    private static final Pattern STARTED = Pattern.compile("Started SpringCloudApplication in ([0-9.]+) seconds");
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+    // The limits the application is deployed with in app.yaml; the heap limit applies to the executable too
+    private static final List<String> JVM_OPTIONS = Arrays.asList("-XX:MaxRAM=256m", "-XX:ActiveProcessorCount=2", "-Xmx32m");
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    public static void main(String[] args) throws Exception {
+        final Path jar = Paths.get(args[0]);
+        final Path executable = Paths.get(args[1]);
+        final int runs = Integer.parseInt(args[2]);
+        final Path reportFile = Paths.get(args[3]);
+        final Path cdsDirectory = args.length > 4 ? Paths.get(args[4]) : null;
+
+        final StartupComparison comparison = new StartupComparison();
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("jvm", comparison.measure(java("-jar", jar.toString()), runs));
+        if (cdsDirectory != null && Files.exists(cdsDirectory.resolve("consultants.jsa"))) {
+            // The same class path the archive was dumped with, or the JVM ignores it
+            final String classPath = cdsDirectory.resolve("consultants.jar") + File.pathSeparator
+                    + cdsDirectory.resolve("lib") + File.separator + "*";
+            report.put("appcds", comparison.measure(java("-XX:SharedArchiveFile=" + cdsDirectory.resolve("consultants.jsa"),
+                    "-cp", classPath, "com.pa.spring.springcloud.SpringCloudApplication"), runs));
+        }
+        if (Files.isExecutable(executable)) {
+            report.put("native", comparison.measure(Arrays.asList(executable.toString(), "-Xmx32m", "--server.port=0"), runs));
+        } else {
+            System.out.println("No native executable at " + executable + ", so only the JVM build was measured");
+        }
+        report.forEach((build, summary) -> System.out.println(String.format("%-6s %s", build, summary)));
+        if (reportFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        }
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    private static List<String> java(String... arguments) {
+        final List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(JVM_OPTIONS);
+        command.addAll(Arrays.asList(arguments));
+        command.add("--server.port=0");
+        return command;
+    }
+
+    private Map<String, Object> measure(List<String> command, int runs) throws Exception {
+        final List<Map<String, Object>> samples = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            samples.add(start(command));
+        }
+        final Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("command", String.join(" ", command));
+        summary.put("startedMillis", median(samples, "startedMillis"));
+        summary.put("reportedStartMillis", median(samples, "reportedStartMillis"));
+        summary.put("firstResponseMillis", median(samples, "firstResponseMillis"));
+        summary.put("rssMegabytes", median(samples, "rssMegabytes"));
+        summary.put("peakRssMegabytes", median(samples, "peakRssMegabytes"));
+        summary.put("runs", samples);
+        return summary;
+    }
+
+    // From launching the process, to Spring Boot logging that it has started, to the first response
+    private Map<String, Object> start(List<String> command) throws Exception {
+        final long launched = System.nanoTime();
+        final Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+        try {
+            final CompletableFuture<Integer> port = new CompletableFuture<>();
+            final CompletableFuture<Double> started = new CompletableFuture<>();
+            final Thread reader = new Thread(() -> readLog(process, port, started), "startup-log");
+            reader.setDaemon(true);
+            reader.start();
+
+            final double reportedSeconds = started.get(START_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            final long startedNanos = System.nanoTime() - launched;
+            final HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port.get(1, TimeUnit.SECONDS) + "/skills")).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            final long firstResponseNanos = System.nanoTime() - launched;
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("The first request was answered with " + response.statusCode());
+            }
+
+            final Map<String, Object> sample = new LinkedHashMap<>();
+            sample.put("startedMillis", TimeUnit.NANOSECONDS.toMillis(startedNanos));
+            sample.put("reportedStartMillis", Math.round(reportedSeconds * 1000));
+            sample.put("firstResponseMillis", TimeUnit.NANOSECONDS.toMillis(firstResponseNanos));
+            sample.put("rssMegabytes", memory(process, "VmRSS"));
+            sample.put("peakRssMegabytes", memory(process, "VmHWM"));
+            return sample;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void readLog(Process process, CompletableFuture<Integer> port, CompletableFuture<Double> started) {
+        try (BufferedReader log = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = log.readLine(); line != null; line = log.readLine()) {
+                final Matcher portMatcher = PORT.matcher(line);
+                if (portMatcher.find()) {
+                    port.complete(Integer.parseInt(portMatcher.group(1)));
+                }
+                final Matcher startedMatcher = STARTED.matcher(line);
+                if (startedMatcher.find()) {
+                    started.complete(Double.parseDouble(startedMatcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            started.completeExceptionally(e);
+        }
+        started.completeExceptionally(new IllegalStateException("The application exited before it had started"));
+    }
+
+    // In megabytes, from the kernel's view of the process, or -1 where that is not available
+    private static double memory(Process process, String field) throws IOException {
+        final Path status = Paths.get("/proc", Long.toString(process.pid()), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith(field + ":")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024.0;
+            }
+        }
+        return -1;
+    }
+
+    private static double median(List<Map<String, Object>> samples, String key) {
+        final double[] values = samples.stream().mapToDouble(sample -> ((Number) sample.get(key)).doubleValue()).sorted().toArray();
+        return values.length % 2 == 1
+                ? values[values.length / 2]
+                : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+    }
+}
@@ -0,0 +1,123 @@
+package unit.pa.spring.springcloud.repository;
+
+import com.pa.spring.springcloud.repository.ReplicaRoutingDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplicaRoutingDataSourceTest {
+    private static final Duration MAX_LAG = Duration.ofSeconds(1);
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private ReplicaRoutingDataSource dataSource;
+
+    @Before
+    public void setUp() {
+        dataSource = new ReplicaRoutingDataSource(primary, replica, MAX_LAG, nanoTime::get);
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void getConnection_ReadOnlyTransaction_ShouldUseReplica() throws SQLException {
+        // Given a read-only transaction
+        connectionsFrom(replica);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When a statement is run
+        dataSource.getConnection().createStatement();
+
+        // Then it runs on the replica
+        verify(replica).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    public void getConnection_ReadWriteOrNoTransaction_ShouldUsePrimary() throws SQLException {
+        // Given no read-only transaction
+        connectionsFrom(primary);
+
+        // When a statement is run
+        dataSource.getConnection().createStatement();
+
+        // Then it runs on the primary
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    public void getConnection_ReadOnlyWithinMaxLagOfWrite_ShouldUsePrimaryUntilLagHasPassed() throws SQLException {
+        // Given a write
+        connectionsFrom(primary, replica);
+        dataSource.getConnection().createStatement();
+
+        // When a read-only transaction runs within the lag the replica is allowed, and again once it has passed
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        nanoTime.addAndGet(MAX_LAG.toNanos() - 1);
+        dataSource.getConnection().createStatement();
+        nanoTime.incrementAndGet();
+        dataSource.getConnection().createStatement();
+
+        // Then the first reads what was written from the primary, and the second goes back to the replica
+        verify(primary, times(2)).getConnection();
+        verify(replica).getConnection();
+    }
+
+    @Test
+    public void getConnection_WriteTransactionCompletes_ShouldCountLagFromCompletion() throws SQLException {
+        // Given a write in a transaction that takes longer than the lag to complete
+        connectionsFrom(primary);
+        TransactionSynchronizationManager.initSynchronization();
+        dataSource.getConnection().createStatement();
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // When a read-only transaction runs just after it completes
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        nanoTime.incrementAndGet();
+        dataSource.getConnection().createStatement();
+
+        // Then it reads from the primary
+        verify(primary, times(2)).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    private static void connectionsFrom(DataSource... dataSources) throws SQLException {
+        for (DataSource dataSource : dataSources) {
+            when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        }
+    }
+}
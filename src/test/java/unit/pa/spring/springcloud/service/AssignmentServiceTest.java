@@ -3,27 +3,37 @@ package unit.pa.spring.springcloud.service;
 import com.pa.spring.springcloud.model.Assignment;
 import com.pa.spring.springcloud.repository.AssignmentRepository;
 import com.pa.spring.springcloud.service.AssignmentService;
+import com.pa.spring.springcloud.service.BatchInserter;
+import com.pa.spring.springcloud.service.ModificationCounter;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.verify;
+import static unit.pa.spring.springcloud.util.Constants.Assignments.HOME_OFFICE;
 import static unit.pa.spring.springcloud.util.Constants.Assignments.RENTOKIL;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AssignmentServiceTest {
     @Mock
     private AssignmentRepository assignmentRepository;
+    @Mock
+    private BatchInserter batchInserter;
+    @Mock
+    private ModificationCounter modificationCounter;
     @InjectMocks
     private AssignmentService assignmentService;
 
     @Test
     public void findAll_WhenCalled_DelegatesToRepository() {
-        assignmentService.findAll();
-        verify(assignmentRepository).findAll();
+        assignmentService.findAll(0L, 100);
+        verify(assignmentRepository).findAllByIdGreaterThanOrderById(0L, PageRequest.of(0, 100));
     }
 
     @Test
@@ -56,4 +66,10 @@ public class AssignmentServiceTest {
         // then the call is delegated to the delete method of the assignment repository
         verify(assignmentRepository).delete(validAssignment);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void saveAll_WhenCalled_DelegatesToBatchInserter() {
+        assignmentService.saveAll(Arrays.asList(RENTOKIL, HOME_OFFICE));
+        verify(batchInserter).insert(Arrays.asList(RENTOKIL, HOME_OFFICE));
+    }
+}
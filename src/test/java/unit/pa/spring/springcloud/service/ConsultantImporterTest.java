@@ -0,0 +1,154 @@
+package unit.pa.spring.springcloud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.AssignmentRepository;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import com.pa.spring.springcloud.service.BatchItemResult;
+import com.pa.spring.springcloud.service.ConsultantImporter;
+import com.pa.spring.springcloud.service.ConsultantService;
+import com.pa.spring.springcloud.service.ImportFormat;
+import com.pa.spring.springcloud.service.ImportReport;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConsultantImporterTest {
+    private static final Skill JAVA = new Skill(new Skill("Java", "Java programming language"), 1L);
+    private static final Skill SPRING = new Skill(new Skill("Spring", "Spring Framework"), 2L);
+    private static final Assignment RENTOKIL = new Assignment("Rentokil");
+
+    @Mock
+    private ConsultantService consultantService;
+    @Mock
+    private SkillRepository skillRepository;
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    private ConsultantImporter consultantImporter;
+
+    @Before
+    public void setUp() {
+        consultantImporter = new ConsultantImporter(consultantService, skillRepository, assignmentRepository,
+                new ObjectMapper(), 2);
+    }
+
+    @Test
+    public void importFrom_CsvAcrossChunks_ResolvesEachNameOnce() throws Exception {
+        // Given three consultants sharing skills and an assignment, across two chunks of two
+        createAll();
+        when(skillRepository.findAllByNormalisedNameIn(Set.of("java", "spring"))).thenReturn(Arrays.asList(JAVA, SPRING));
+        when(assignmentRepository.findByName("Rentokil")).thenReturn(Optional.of(RENTOKIL));
+        final InputStream file = file("id,fullName,email,assignment,skills",
+                "1,John Doe,john@doe,Rentokil,Java",
+                "2,Jane Doe,jane@doe,Rentokil,Java;Spring",
+                "3,Con Sultant,con@sultant,,spring");
+
+        // When we import them
+        final ImportReport report = consultantImporter.importFrom(file, ImportFormat.CSV, progress -> {
+        });
+
+        // Then all three are created in two chunks, with each name only looked up once
+        assertEquals(3, report.getRows());
+        assertEquals(3, report.getCreated());
+        final List<Consultant> saved = saved(2);
+        assertEquals(RENTOKIL, saved.get(0).getAssignment());
+        assertEquals(Arrays.asList(JAVA, SPRING), saved.get(1).getSkills());
+        assertNull(saved.get(2).getAssignment());
+        assertEquals(Collections.singletonList(SPRING), saved.get(2).getSkills());
+        verify(skillRepository, times(1)).findAllByNormalisedNameIn(anyCollection());
+        verify(assignmentRepository, times(1)).findByName("Rentokil");
+    }
+
+    @Test
+    public void importFrom_NdjsonWithUnknownNames_RejectsOnlyThoseRows() throws Exception {
+        // Given an export style NDJSON file, where the second consultant has an unknown skill
+        // and the third an unknown assignment
+        createAll();
+        when(skillRepository.findAllByNormalisedNameIn(Set.of("java", "cobol"))).thenReturn(Collections.singletonList(JAVA));
+        when(assignmentRepository.findByName("Rentokil")).thenReturn(Optional.of(RENTOKIL));
+        when(assignmentRepository.findByName("Acme")).thenReturn(Optional.empty());
+        final InputStream file = file(
+                "{\"fullName\": \"John Doe\", \"email\": \"john@doe\", \"assignment\": {\"id\": 1, \"name\": \"Rentokil\"}, \"skills\": [{\"id\": 1, \"name\": \"Java\"}]}",
+                "{\"fullName\": \"Jane Doe\", \"email\": \"jane@doe\", \"skills\": [\"COBOL\"]}",
+                "{\"fullName\": \"Con Sultant\", \"email\": \"con@sultant\", \"assignment\": \"Acme\", \"skills\": []}");
+
+        // When we import it
+        final ImportReport report = consultantImporter.importFrom(file, ImportFormat.NDJSON, progress -> {
+        });
+
+        // Then only the first consultant is saved, and the others are reported by row
+        assertEquals(3, report.getRows());
+        assertEquals(1, report.getCreated());
+        assertEquals(2, report.getRejected());
+        assertEquals(Arrays.asList(2L, 3L), report.getErrors().stream()
+                .map(ImportReport.RowError::getRow).collect(Collectors.toList()));
+        assertEquals("Unknown skill: COBOL", report.getErrors().get(0).getError());
+        assertEquals("Unknown assignment: Acme", report.getErrors().get(1).getError());
+        assertEquals(Collections.singletonList(JAVA), saved(1).get(0).getSkills());
+    }
+
+    @Test
+    public void importFrom_RowsRejectedOnInsert_ReportsTheirRows() throws Exception {
+        // Given the inserter rejects the second consultant of a chunk
+        when(consultantService.saveAll(anyList())).thenReturn(Arrays.asList(BatchItemResult.created(0, 1L),
+                BatchItemResult.rejected(1, "email must be a well-formed email address")));
+        final InputStream file = file("fullName,email", "John Doe,john@doe", "Jane Doe,jane");
+
+        // When we import both
+        final List<Long> progress = new ArrayList<>();
+        final ImportReport report = consultantImporter.importFrom(file, ImportFormat.CSV,
+                progressReport -> progress.add(progressReport.getRows()));
+
+        // Then the rejected row is reported, after the one chunk is written
+        assertEquals(1, report.getCreated());
+        assertEquals(2L, report.getErrors().get(0).getRow());
+        assertEquals("email must be a well-formed email address", report.getErrors().get(0).getError());
+        assertEquals(Collections.singletonList(2L), progress);
+    }
+
+    private void createAll() {
+        when(consultantService.saveAll(anyList())).thenAnswer(invocation -> {
+            final List<Consultant> consultants = invocation.getArgument(0);
+            return IntStream.range(0, consultants.size())
+                    .mapToObj(index -> BatchItemResult.created(index, (long) index))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private List<Consultant> saved(int chunks) {
+        @SuppressWarnings("unchecked") final ArgumentCaptor<List<Consultant>> captor = ArgumentCaptor.forClass(List.class);
+        verify(consultantService, times(chunks)).saveAll(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    private static InputStream file(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,95 @@
+package unit.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.service.ConsultantSearchStream;
+import com.pa.spring.springcloud.service.ConsultantService;
+import com.pa.spring.springcloud.service.SkillMatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConsultantSearchStreamTest {
+    @Mock
+    private ConsultantService consultantService;
+
+    private ConsultantSearchStream consultantSearchStream;
+
+    @Before
+    public void setUp() {
+        consultantSearchStream = new ConsultantSearchStream(consultantService, 2, 1);
+    }
+
+    @After
+    public void tearDown() {
+        consultantSearchStream.shutdown();
+    }
+
+    @Test
+    public void findConsultantsWithSkills_SeveralPages_ShouldStreamEveryPageInOrder() {
+        // Given five Java consultants, read two at a time
+        when(consultantService.findConsultantsWithSkills("java", SkillMatch.ANY, 0L, 2)).thenReturn(consultants(1, 2));
+        when(consultantService.findConsultantsWithSkills("java", SkillMatch.ANY, 2L, 2)).thenReturn(consultants(3, 4));
+        when(consultantService.findConsultantsWithSkills("java", SkillMatch.ANY, 4L, 2)).thenReturn(consultants(5));
+
+        // When we stream them all
+        final List<Consultant> streamed = consultantSearchStream.findConsultantsWithSkills("java", SkillMatch.ANY, false)
+                .collectList().block();
+
+        // Then each page follows on from the last, and the partial page ends the stream
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), streamed.stream().map(Consultant::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findConsultantsWithSkills_FirstOnly_ShouldNotReadFurtherPages() {
+        // Given more available Java consultants than fit in a page
+        when(consultantService.findAvailableConsultantsWithSkills("java", SkillMatch.ALL, 0L, 2)).thenReturn(consultants(1, 2));
+
+        // When the client only takes the first of them
+        final Consultant first = consultantSearchStream.findConsultantsWithSkills("java", SkillMatch.ALL, true)
+                .blockFirst();
+
+        // Then only the first page is read
+        assertEquals(Long.valueOf(1L), first.getId());
+        verify(consultantService, never()).findAvailableConsultantsWithSkills("java", SkillMatch.ALL, 2L, 2);
+    }
+
+    @Test
+    public void findConsultantsWithSkills_NoMatches_ShouldComplete() {
+        // Given no C# consultants
+        when(consultantService.findConsultantsWithSkills("c#", SkillMatch.ANY, 0L, 2)).thenReturn(Collections.emptyList());
+
+        // When we stream them
+        final List<Consultant> streamed = consultantSearchStream.findConsultantsWithSkills("c#", SkillMatch.ANY, false)
+                .collectList().block();
+
+        // Then the stream completes empty, after one read
+        assertEquals(Collections.emptyList(), streamed);
+        verify(consultantService).findConsultantsWithSkills("c#", SkillMatch.ANY, 0L, 2);
+    }
+
+    private static List<Consultant> consultants(long... ids) {
+        return Arrays.stream(ids)
+                .mapToObj(id -> {
+                    final Consultant consultant = new Consultant("Consultant " + id, "consultant" + id + "@example.com",
+                            null, Collections.emptyList());
+                    ReflectionTestUtils.setField(consultant, "id", id);
+                    return consultant;
+                })
+                .collect(Collectors.toList());
+    }
+}
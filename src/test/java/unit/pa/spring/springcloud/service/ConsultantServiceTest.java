@@ -1,54 +1,75 @@
 package unit.pa.spring.springcloud.service;
 
+import com.pa.spring.springcloud.model.Assignment;
 import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
 import com.pa.spring.springcloud.repository.ConsultantRepository;
-import com.pa.spring.springcloud.repository.SkillRepository;
+import com.pa.spring.springcloud.service.BatchInserter;
 import com.pa.spring.springcloud.service.ConsultantService;
-import org.junit.Before;
+import com.pa.spring.springcloud.service.ConsultantSkillIndex;
+import com.pa.spring.springcloud.service.ModificationCounter;
+import com.pa.spring.springcloud.service.SkillNameResolver;
+import com.pa.spring.springcloud.service.SkillMatch;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
+import javax.persistence.EntityManager;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static unit.pa.spring.springcloud.util.Constants.Consultants.*;
-import static unit.pa.spring.springcloud.util.Constants.Skills.C_SHARP;
-import static unit.pa.spring.springcloud.util.Constants.Skills.JAVA;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ConsultantServiceTest {
+    private static final int LIMIT = 100;
+    private static final Pageable PAGE = PageRequest.of(0, LIMIT);
 
     @Mock
     private ConsultantRepository consultantRepository;
     @Mock
-    private SkillRepository skillRepository;
+    private SkillNameResolver skillNameResolver;
+    @Mock
+    private ConsultantSkillIndex consultantSkillIndex;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private BatchInserter batchInserter;
+    @Mock
+    private ModificationCounter modificationCounter;
     @InjectMocks
     private ConsultantService consultantService;
 
-    @Before
-    public void setUp() {
-        when(skillRepository.findByNameLikeIgnoreCase("java")).thenReturn(Optional.of(JAVA));
-        when(skillRepository.findByNameLikeIgnoreCase("c#")).thenReturn(Optional.of(C_SHARP));
-    }
-
     @Test
     public void findConsultantsWithSkills_SingleSkill_ReturnsConsultantsWithSkill() {
         // given we have two java consultants
-        when(consultantRepository.findAllBySkillsContaining(JAVA)).thenReturn(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_RENTOKIL_JAVA));
+        when(consultantRepository.findIdsWithAnySkill(Set.of("java"), 0L, PAGE)).thenReturn(Arrays.asList(1L, 2L));
+        when(consultantRepository.findDistinctByIdInOrderById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_RENTOKIL_JAVA));
 
         // when we find all consultants with the "java" skill
-        final List<Consultant> consultants = consultantService.findConsultantsWithSkills("java");
+        final List<Consultant> consultants = consultantService.findConsultantsWithSkills("java", SkillMatch.ANY, 0L, LIMIT);
 
         // then we get back 2 consultants
         assertEquals(2, consultants.size());
@@ -59,11 +80,11 @@ public class ConsultantServiceTest {
     @Test
     public void findConsultantsWithSkills_MultipleSkills_ReturnsConsultantsWithAnySkills() {
         // given we have two java consultants and one C# consultant
-        when(consultantRepository.findAllBySkillsContaining(JAVA)).thenReturn(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_RENTOKIL_JAVA));
-        when(consultantRepository.findAllBySkillsContaining(C_SHARP)).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_C_SHARP));
+        when(consultantRepository.findIdsWithAnySkill(Set.of("java", "c#"), 0L, PAGE)).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(consultantRepository.findDistinctByIdInOrderById(Arrays.asList(1L, 2L, 3L))).thenReturn(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_RENTOKIL_JAVA, JOHN_DOE_AVAILABLE_C_SHARP));
 
         // when we find all consultants with either the "java" or "c#" skill
-        final List<Consultant> consultants = consultantService.findConsultantsWithSkills("java,c#");
+        final List<Consultant> consultants = consultantService.findConsultantsWithSkills("java,c#", SkillMatch.ANY, 0L, LIMIT);
 
         // then we get back 3 consultants
         assertEquals(3, consultants.size());
@@ -72,27 +93,72 @@ public class ConsultantServiceTest {
         assertTrue(consultants.contains(JOHN_DOE_AVAILABLE_C_SHARP));
     }
 
+    @Test
+    public void findConsultantsWithSkills_MixedCaseAndWhitespace_NormalisesSkillNames() {
+        // given we have one java consultant
+        when(consultantRepository.findIdsWithAnySkill(Set.of("java", "c#"), 0L, PAGE)).thenReturn(Collections.singletonList(1L));
+        when(consultantRepository.findDistinctByIdInOrderById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
+
+        // when we search with padded, mixed case and duplicated skill names
+        final List<Consultant> consultants = consultantService.findConsultantsWithSkills(" Java , C#,java,", SkillMatch.ANY, 0L, LIMIT);
+
+        // then the names are normalised before reaching the repository
+        assertEquals(1, consultants.size());
+        verify(consultantRepository).findIdsWithAnySkill(Set.of("java", "c#"), 0L, PAGE);
+    }
+
+    @Test
+    public void findConsultantsWithSkills_MatchAll_RequiresEverySkill() {
+        // given we have one consultant with both the java and spring skills
+        when(consultantRepository.findIdsWithAllSkills(Set.of("java", "spring"), 2L, 0L, PAGE)).thenReturn(Collections.singletonList(1L));
+        when(consultantRepository.findDistinctByIdInOrderById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(JANE_DOE_RENTOKIL_JAVA_SPRING));
+
+        // when we find all consultants with both the "java" and "spring" skills
+        final List<Consultant> consultants = consultantService.findConsultantsWithSkills("java,spring", SkillMatch.ALL, 0L, LIMIT);
+
+        // then we get back the one consultant, using a single search query and a single load by id
+        assertEquals(1, consultants.size());
+        assertTrue(consultants.contains(JANE_DOE_RENTOKIL_JAVA_SPRING));
+        verify(consultantRepository).findIdsWithAllSkills(Set.of("java", "spring"), 2L, 0L, PAGE);
+        verify(consultantRepository).findDistinctByIdInOrderById(Collections.singletonList(1L));
+        verifyNoMoreInteractions(consultantRepository);
+    }
+
+    @Test
+    public void findConsultantsWithSkills_NoSkillNames_ReturnsEmptyListWithoutQuerying() {
+        // when we search with a blank skill list
+        final List<Consultant> consultants = consultantService.findConsultantsWithSkills(" , ", SkillMatch.ANY, 0L, LIMIT);
+
+        // then we get back no consultants and the repository is not queried
+        assertEquals(0, consultants.size());
+        verifyZeroInteractions(consultantRepository);
+    }
+
     @Test
     public void findAvailableConsultantsWithSkills_SingleSkill_ReturnsConsultantsWithSkill() {
         // given we two java consultants with one available
-        when(consultantRepository.findAllBySkillsContaining(JAVA)).thenReturn(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_RENTOKIL_JAVA));
+        when(consultantRepository.findIdsAvailableWithAnySkill(Set.of("java"), 0L, PAGE)).thenReturn(Collections.singletonList(1L));
+        when(consultantRepository.findDistinctByIdInOrderById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
 
         // when we find all available consultants with the "java" skill
-        final List<Consultant> consultants = consultantService.findAvailableConsultantsWithSkills("java");
+        final List<Consultant> consultants = consultantService.findAvailableConsultantsWithSkills("java", SkillMatch.ANY, 0L, LIMIT);
 
-        // then we get back one consultant
+        // then we get back one consultant, filtered by the repository query
         assertEquals(1, consultants.size());
         assertTrue(consultants.contains(JOHN_DOE_AVAILABLE_JAVA));
+        verify(consultantRepository).findIdsAvailableWithAnySkill(Set.of("java"), 0L, PAGE);
+        verify(consultantRepository).findDistinctByIdInOrderById(Collections.singletonList(1L));
+        verifyNoMoreInteractions(consultantRepository);
     }
 
     @Test
     public void findAvailableConsultantsWithSkills_MultipleSkills_ReturnsConsultantsWithAnySkills() {
         // given we have two java consultants and one C# consultant, with two available
-        when(consultantRepository.findAllBySkillsContaining(JAVA)).thenReturn(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_RENTOKIL_JAVA));
-        when(consultantRepository.findAllBySkillsContaining(C_SHARP)).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_C_SHARP));
+        when(consultantRepository.findIdsAvailableWithAnySkill(Set.of("java", "c#"), 0L, PAGE)).thenReturn(Arrays.asList(1L, 2L));
+        when(consultantRepository.findDistinctByIdInOrderById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_AVAILABLE_C_SHARP));
 
         // when we find all available consultants with either the "java" or "c#" skill
-        final List<Consultant> consultants = consultantService.findAvailableConsultantsWithSkills("java,c#");
+        final List<Consultant> consultants = consultantService.findAvailableConsultantsWithSkills("java,c#", SkillMatch.ANY, 0L, LIMIT);
 
         // then we get back two consultants
         assertEquals(2, consultants.size());
@@ -103,31 +169,107 @@ public class ConsultantServiceTest {
     @Test
     public void findAvailableConsultantsWithSkills_NoConsultantsWithSkill_ReturnsEmptyList() {
         // given we have no java consultants
-        when(consultantRepository.findAllBySkillsContaining(JAVA)).thenReturn(Collections.emptyList());
+        when(consultantRepository.findIdsAvailableWithAnySkill(Set.of("java"), 0L, PAGE)).thenReturn(Collections.emptyList());
 
         // when we find all consultants with the "java" skill
-        final List<Consultant> consultants = consultantService.findAvailableConsultantsWithSkills("java");
+        final List<Consultant> consultants = consultantService.findAvailableConsultantsWithSkills("java", SkillMatch.ANY, 0L, LIMIT);
 
         // then we get back no consultants
         assertEquals(0, consultants.size());
     }
 
+    @Test
+    public void findAvailableConsultantsWithSkills_MatchAll_FiltersInRepository() {
+        // given we have one available consultant with both the java and spring skills
+        when(consultantRepository.findIdsAvailableWithAllSkills(Set.of("java", "spring"), 2L, 0L, PAGE)).thenReturn(Collections.singletonList(1L));
+        when(consultantRepository.findDistinctByIdInOrderById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
+
+        // when we find all available consultants with both the "java" and "spring" skills
+        final List<Consultant> consultants = consultantService.findAvailableConsultantsWithSkills("java,spring", SkillMatch.ALL, 0L, LIMIT);
+
+        // then we get back the one consultant
+        assertEquals(1, consultants.size());
+        assertTrue(consultants.contains(JOHN_DOE_AVAILABLE_JAVA));
+    }
+
+    @Test
+    public void findConsultantsWithSkills_IndexReady_HydratesIndexedConsultants() {
+        // given the index is ready and holds two java consultants
+        when(consultantSkillIndex.isReady()).thenReturn(true);
+        when(skillNameResolver.resolve(Set.of("java"))).thenReturn(Map.of("java", Set.of(1L)));
+        when(consultantSkillIndex.search(anyCollection(), eq(SkillMatch.ANY), eq(false), eq(0L), eq(LIMIT))).thenReturn(Arrays.asList(1L, 2L));
+        when(consultantRepository.findDistinctByIdInOrderById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_RENTOKIL_JAVA));
+
+        // when we find all consultants with the "java" skill
+        final List<Consultant> consultants = consultantService.findConsultantsWithSkills("java", SkillMatch.ANY, 0L, LIMIT);
+
+        // then the matching consultants are loaded by id, without a skill join query
+        assertEquals(2, consultants.size());
+        verify(consultantRepository).findDistinctByIdInOrderById(Arrays.asList(1L, 2L));
+        verifyNoMoreInteractions(consultantRepository);
+    }
+
+    @Test
+    public void findAvailableConsultantsWithSkills_IndexReady_SearchesAvailableConsultantsOnly() {
+        // given the index is ready and holds one available java consultant
+        when(consultantSkillIndex.isReady()).thenReturn(true);
+        when(skillNameResolver.resolve(Set.of("java"))).thenReturn(Map.of("java", Set.of(1L)));
+        when(consultantSkillIndex.search(anyCollection(), eq(SkillMatch.ANY), eq(true), eq(0L), eq(LIMIT))).thenReturn(Collections.singletonList(1L));
+        when(consultantRepository.findDistinctByIdInOrderById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(JOHN_DOE_AVAILABLE_JAVA));
+
+        // when we find all available consultants with the "java" skill
+        final List<Consultant> consultants = consultantService.findAvailableConsultantsWithSkills("java", SkillMatch.ANY, 0L, LIMIT);
+
+        // then we get back the available consultant
+        assertEquals(1, consultants.size());
+        assertTrue(consultants.contains(JOHN_DOE_AVAILABLE_JAVA));
+    }
+
+    @Test
+    public void findConsultantsWithSkills_IndexReadyMatchAllUnknownSkill_ReturnsEmptyList() {
+        // given the index is ready, and only the java skill exists
+        when(consultantSkillIndex.isReady()).thenReturn(true);
+        when(skillNameResolver.resolve(Set.of("java", "cobol"))).thenReturn(Map.of("java", Set.of(1L)));
+
+        // when we find all consultants with both the "java" and "cobol" skills
+        final List<Consultant> consultants = consultantService.findConsultantsWithSkills("java,cobol", SkillMatch.ALL, 0L, LIMIT);
+
+        // then we get back no consultants, without loading any
+        assertEquals(0, consultants.size());
+        verifyZeroInteractions(consultantRepository);
+    }
+
     @Test
     public void findAll_WhenCalled_DelegatesToRepository() {
         // given we have a list of valid consultants
-        when(consultantRepository.findAll()).thenReturn(Arrays.asList(JANE_DOE_RENTOKIL_JAVA_SPRING, JOHN_DOE_AVAILABLE_JAVA, CON_SULTANT_AVAILABLE_NO_SKILLS));
+        when(consultantRepository.findIdsAfter(0L, PAGE)).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(consultantRepository.findDistinctByIdInOrderById(Arrays.asList(1L, 2L, 3L))).thenReturn(Arrays.asList(JANE_DOE_RENTOKIL_JAVA_SPRING, JOHN_DOE_AVAILABLE_JAVA, CON_SULTANT_AVAILABLE_NO_SKILLS));
 
         // when the findAll method is called on the consultant service
-        final List<Consultant> consultants = StreamSupport.stream(consultantService.findAll().spliterator(), true).collect(Collectors.toList());
+        final List<Consultant> consultants = consultantService.findAll(0L, LIMIT);
 
-        // then the call is delegated to the findAll method of the consultant repository
-        verify(consultantRepository).findAll();
+        // then the call is delegated to the keyset query of the consultant repository
+        verify(consultantRepository).findIdsAfter(0L, PAGE);
         assertEquals(3, consultants.size());
         assertTrue(consultants.contains(JANE_DOE_RENTOKIL_JAVA_SPRING));
         assertTrue(consultants.contains(JOHN_DOE_AVAILABLE_JAVA));
         assertTrue(consultants.contains(CON_SULTANT_AVAILABLE_NO_SKILLS));
     }
 
+    @Test
+    public void findAll_NoConsultantsAfter_ReturnsEmptyListWithoutLoading() {
+        // given there are no consultants after the requested id
+        when(consultantRepository.findIdsAfter(7L, PAGE)).thenReturn(Collections.emptyList());
+
+        // when the findAll method is called on the consultant service
+        final List<Consultant> consultants = consultantService.findAll(7L, LIMIT);
+
+        // then we get back no consultants, without loading any by id
+        assertTrue(consultants.isEmpty());
+        verify(consultantRepository).findIdsAfter(7L, PAGE);
+        verifyNoMoreInteractions(consultantRepository);
+    }
+
     @Test
     public void findById_WhenCalled_DelegatesToRepository() {
         // given we have a valid consultant
@@ -155,6 +297,18 @@ public class ConsultantServiceTest {
         assertEquals(serviceConsultant, repositoryConsultant);
     }
 
+    @Test
+    public void save_WhenCalled_UpdatesIndex() {
+        // given the repository returns the saved consultant
+        when(consultantRepository.save(JANE_DOE_RENTOKIL_JAVA_SPRING)).thenReturn(JANE_DOE_RENTOKIL_JAVA_SPRING);
+
+        // when the save method is called on the consultant service
+        consultantService.save(JANE_DOE_RENTOKIL_JAVA_SPRING);
+
+        // then the saved consultant is indexed
+        verify(consultantSkillIndex).update(JANE_DOE_RENTOKIL_JAVA_SPRING);
+    }
+
     @Test
     public void delete_WhenCalled_DelegatesToRepository() {
         // given we have a valid consultant
@@ -163,7 +317,50 @@ public class ConsultantServiceTest {
         // when the delete method is called on the consultant service
         consultantService.delete(validConsultant);
 
-        // then the call is delegated to the delete method of the consultant repository
+        // then the call is delegated to the delete method of the consultant repository, and the index is updated
         verify(consultantRepository).delete(validConsultant);
+        verify(consultantSkillIndex).remove(validConsultant.getId());
+    }
+
+    @Test
+    public void exportAll_WhenCalled_WritesAndDetachesEachConsultant() {
+        // given the repository streams two consultants
+        when(consultantRepository.streamAll()).thenReturn(Stream.of(JOHN_DOE_AVAILABLE_JAVA, JANE_DOE_RENTOKIL_JAVA_SPRING));
+        final List<Consultant> exported = new ArrayList<>();
+
+        // when all consultants are exported
+        consultantService.exportAll(exported::add);
+
+        // then each consultant is written in order, and detached once written
+        assertEquals(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JANE_DOE_RENTOKIL_JAVA_SPRING), exported);
+        verify(entityManager).detach(JOHN_DOE_AVAILABLE_JAVA);
+        verify(entityManager).detach(JANE_DOE_RENTOKIL_JAVA_SPRING);
+    }
+
+    @Test
+    public void saveAll_CreatedConsultants_AreIndexed() {
+        // given the batch inserter creates the first consultant only
+        doAnswer(invocation -> {
+            final Consumer<Consultant> onCreated = invocation.getArgument(1);
+            onCreated.accept(JOHN_DOE_AVAILABLE_JAVA);
+            return Collections.emptyList();
+        }).when(batchInserter).insert(eq(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_AVAILABLE_C_SHARP)), any());
+
+        // when the saveAll method is called on the consultant service
+        consultantService.saveAll(Arrays.asList(JOHN_DOE_AVAILABLE_JAVA, JOHN_DOE_AVAILABLE_C_SHARP));
+
+        // then only the created consultant is indexed
+        verify(consultantSkillIndex).update(JOHN_DOE_AVAILABLE_JAVA);
+        verifyNoMoreInteractions(consultantSkillIndex);
+    }
+
+    @Test
+    public void tableVersion_WhenCalled_CoversSkillAndAssignmentTables() {
+        // given the consultant, skill and assignment tables are at a version
+        when(modificationCounter.version(Consultant.class, Skill.class, Assignment.class)).thenReturn("epoch-1-2-3");
+
+        // when the consultant collection's version is requested
+        // then it covers the skills and assignments consultants are serialised with
+        assertEquals("epoch-1-2-3", consultantService.tableVersion());
     }
-}
\ No newline at end of file
+}
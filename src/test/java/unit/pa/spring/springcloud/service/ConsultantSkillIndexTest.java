@@ -0,0 +1,181 @@
+package unit.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.model.Assignment;
+import com.pa.spring.springcloud.model.Consultant;
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.ConsultantRepository;
+import com.pa.spring.springcloud.repository.ConsultantSkillId;
+import com.pa.spring.springcloud.service.ConsultantSkillIndex;
+import com.pa.spring.springcloud.service.SkillMatch;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConsultantSkillIndexTest {
+    private static final int LIMIT = 100;
+    private static final Skill JAVA = withId(new Skill("Java", "Java programming language"), 1L);
+    private static final Skill SPRING = withId(new Skill("Spring", "Spring Framework"), 2L);
+    private static final Skill C_SHARP = withId(new Skill("C#", "C# programming language"), 3L);
+    private static final Assignment RENTOKIL = withId(new Assignment("Rentokil"), 1L);
+
+    @Mock
+    private ConsultantRepository consultantRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ConsultantSkillIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ConsultantSkillIndex(consultantRepository, transactionManager, true);
+        index.update(withId(new Consultant("Leo Wrest", "leo@wrest", RENTOKIL, Arrays.asList(JAVA, SPRING)), 1L));
+        index.update(withId(new Consultant("Alex Pritchard", "alex@pritchard", null, Arrays.asList(JAVA, SPRING)), 2L));
+        index.update(withId(new Consultant("John Sharp", "john@sharp", null, Collections.singletonList(C_SHARP)), 3L));
+    }
+
+    @Test
+    public void search_MatchAny_ReturnsConsultantsWithAnySkill() {
+        // when we search for consultants with either the Spring or C# skill
+        final List<Long> ids = index.search(Arrays.asList(Set.of(SPRING.getId()), Set.of(C_SHARP.getId())), SkillMatch.ANY, false, 0L, LIMIT);
+
+        // then we get back every consultant, in id order
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids);
+    }
+
+    @Test
+    public void search_MatchAll_ReturnsConsultantsWithEverySkill() {
+        // when we search for consultants with both the Java and Spring skills
+        final List<Long> ids = index.search(Arrays.asList(Set.of(JAVA.getId()), Set.of(SPRING.getId())), SkillMatch.ALL, false, 0L, LIMIT);
+
+        // then we get back the two consultants with both skills
+        assertEquals(Arrays.asList(1L, 2L), ids);
+    }
+
+    @Test
+    public void search_AvailableOnly_ExcludesAssignedConsultants() {
+        // when we search for available consultants with the Java skill
+        final List<Long> ids = index.search(Collections.singletonList(Set.of(JAVA.getId())), SkillMatch.ANY, true, 0L, LIMIT);
+
+        // then the assigned consultant is excluded
+        assertEquals(Collections.singletonList(2L), ids);
+    }
+
+    @Test
+    public void search_AfterAndLimit_ReturnsNextPageOfIds() {
+        // when we page through the consultants with either the Spring or C# skill, two at a time
+        final List<Long> firstPage = index.search(Arrays.asList(Set.of(SPRING.getId()), Set.of(C_SHARP.getId())), SkillMatch.ANY, false, 0L, 2);
+        final List<Long> secondPage = index.search(Arrays.asList(Set.of(SPRING.getId()), Set.of(C_SHARP.getId())), SkillMatch.ANY, false, 2L, 2);
+
+        // then each page continues after the last id of the previous one
+        assertEquals(Arrays.asList(1L, 2L), firstPage);
+        assertEquals(Collections.singletonList(3L), secondPage);
+    }
+
+    @Test
+    public void update_ChangedSkillsAndAssignment_ReplacesPreviousEntry() {
+        // given the C# consultant is re-skilled in Java and assigned
+        index.update(withId(new Consultant("John Sharp", "john@sharp", RENTOKIL, Collections.singletonList(JAVA)), 3L));
+
+        // then they are found by their new skill, and not by their old one or as available
+        assertEquals(Arrays.asList(1L, 2L, 3L), index.search(Collections.singletonList(Set.of(JAVA.getId())), SkillMatch.ANY, false, 0L, LIMIT));
+        assertTrue(index.search(Collections.singletonList(Set.of(C_SHARP.getId())), SkillMatch.ANY, false, 0L, LIMIT).isEmpty());
+        assertEquals(Collections.singletonList(2L), index.search(Collections.singletonList(Set.of(JAVA.getId())), SkillMatch.ANY, true, 0L, LIMIT));
+    }
+
+    @Test
+    public void search_AvailableOnlyForSingleSkill_LeavesIndexUnchanged() {
+        // given a search narrowed to available consultants, on a term with a single skill bitmap
+        index.search(Collections.singletonList(Set.of(JAVA.getId())), SkillMatch.ANY, true, 0L, LIMIT);
+
+        // when we search for the same skill without narrowing
+        final List<Long> ids = index.search(Collections.singletonList(Set.of(JAVA.getId())), SkillMatch.ANY, false, 0L, LIMIT);
+
+        // then the assigned consultant is still found, as searching works on a copy of the skill's bitmap
+        assertEquals(Arrays.asList(1L, 2L), ids);
+    }
+
+    @Test
+    public void update_ConsultantWithHighId_IsFoundAlongsideOthers() {
+        // given a consultant whose id is well past the others
+        index.update(withId(new Consultant("Kim Late", "kim@late", null, Collections.singletonList(C_SHARP)), 100_000L));
+
+        // then they are found with the other C# consultant, and dropping their skills removes them again
+        assertEquals(Arrays.asList(3L, 100_000L), index.search(Collections.singletonList(Set.of(C_SHARP.getId())), SkillMatch.ANY, false, 0L, LIMIT));
+        index.update(withId(new Consultant("Kim Late", "kim@late", null, Collections.emptyList()), 100_000L));
+        assertEquals(Collections.singletonList(3L), index.search(Collections.singletonList(Set.of(C_SHARP.getId())), SkillMatch.ANY, false, 0L, LIMIT));
+    }
+
+    @Test
+    public void remove_IndexedConsultant_IsNoLongerFound() {
+        // when we remove the C# consultant
+        index.remove(3L);
+
+        // then no consultant has the C# skill
+        assertTrue(index.search(Collections.singletonList(Set.of(C_SHARP.getId())), SkillMatch.ANY, false, 0L, LIMIT).isEmpty());
+    }
+
+    @Test
+    public void rebuild_WhenCalled_ReplacesIndexFromRepository() {
+        // given the repository holds a single available Spring consultant
+        when(consultantRepository.streamAllSkillIds()).thenReturn(Stream.of(skillId(4L, SPRING.getId())));
+        when(consultantRepository.streamAllAvailableIds()).thenReturn(Stream.of(4L));
+        assertFalse(index.isReady());
+
+        // when the index is rebuilt
+        index.rebuild();
+
+        // then the index is ready, and only holds the repository's consultant
+        assertTrue(index.isReady());
+        assertEquals(Collections.singletonList(4L), index.search(Collections.singletonList(Set.of(SPRING.getId())), SkillMatch.ANY, true, 0L, LIMIT));
+        assertTrue(index.search(Collections.singletonList(Set.of(JAVA.getId())), SkillMatch.ANY, false, 0L, LIMIT).isEmpty());
+    }
+
+    @Test
+    public void update_Disabled_KeepsNothing() {
+        // given an index that is disabled
+        final ConsultantSkillIndex disabled = new ConsultantSkillIndex(consultantRepository, transactionManager, false);
+
+        // when a consultant is saved
+        disabled.update(withId(new Consultant("Leo Wrest", "leo@wrest", null, Collections.singletonList(JAVA)), 1L));
+
+        // then the index holds nothing for them
+        assertTrue(disabled.search(Collections.singletonList(Set.of(JAVA.getId())), SkillMatch.ANY, false, 0L, LIMIT).isEmpty());
+        assertTrue(((RoaringBitmap) ReflectionTestUtils.getField(disabled, "indexedConsultants")).isEmpty());
+    }
+
+    private static <T> T withId(T entity, Long id) {
+        ReflectionTestUtils.setField(entity, "id", id);
+        return entity;
+    }
+
+    private static ConsultantSkillId skillId(Long consultantId, Long skillId) {
+        return new ConsultantSkillId() {
+            @Override
+            public Long getConsultantId() {
+                return consultantId;
+            }
+
+            @Override
+            public Long getSkillId() {
+                return skillId;
+            }
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package unit.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.model.Skill;
+import com.pa.spring.springcloud.repository.SkillRepository;
+import com.pa.spring.springcloud.service.SkillNameResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SkillNameResolverTest {
+    private static final Skill JAVA = new Skill(new Skill("Java", "Java programming language"), 1L);
+    private static final Skill SPRING = new Skill(new Skill("Spring", "Spring Framework"), 2L);
+    private static final Skill C_SHARP = new Skill(new Skill("C#", "C# programming language"), 3L);
+
+    @Mock
+    private SkillRepository skillRepository;
+
+    private SkillNameResolver skillNameResolver;
+
+    @Before
+    public void setUp() {
+        when(skillRepository.findAll()).thenReturn(Arrays.asList(JAVA, SPRING));
+        skillNameResolver = new SkillNameResolver(skillRepository);
+        skillNameResolver.reload();
+    }
+
+    @Test
+    public void resolve_LoadedSkillNames_ResolvesWithoutQuerying() {
+        // when we resolve a padded, mixed case list of loaded skill names
+        final Map<String, Set<Long>> resolved = skillNameResolver.resolve(" Java ,SPRING,java");
+
+        // then each distinct name resolves to its skill, without querying the repository
+        assertEquals(Map.of("java", Set.of(1L), "spring", Set.of(2L)), resolved);
+        verify(skillRepository, never()).findAllByNormalisedNameIn(anyCollection());
+    }
+
+    @Test
+    public void resolve_UnloadedSkillName_QueriesMissesOnceAndCachesThem() {
+        // given the C# skill was added after the resolver was loaded
+        when(skillRepository.findAllByNormalisedNameIn(Set.of("c#"))).thenReturn(Collections.singletonList(C_SHARP));
+
+        // when we resolve it alongside a loaded name, twice
+        final Map<String, Set<Long>> first = skillNameResolver.resolve("java,c#");
+        final Map<String, Set<Long>> second = skillNameResolver.resolve("java,c#");
+
+        // then only the missing name is queried, and only the first time
+        assertEquals(Map.of("java", Set.of(1L), "c#", Set.of(3L)), first);
+        assertEquals(first, second);
+        verify(skillRepository, times(1)).findAllByNormalisedNameIn(Set.of("c#"));
+    }
+
+    @Test
+    public void resolve_UnknownSkillName_IsNotResolved() {
+        // given there is no COBOL skill
+        when(skillRepository.findAllByNormalisedNameIn(Set.of("cobol"))).thenReturn(Collections.emptyList());
+
+        // when we resolve it alongside a loaded name
+        final Map<String, Set<Long>> resolved = skillNameResolver.resolve("java,cobol");
+
+        // then only the known name resolves
+        assertEquals(Map.of("java", Set.of(1L)), resolved);
+    }
+
+    @Test
+    public void update_RenamedSkill_ResolvesByNewNameOnly() {
+        // given the Java skill is renamed to Kotlin
+        when(skillRepository.findAllByNormalisedNameIn(Set.of("java"))).thenReturn(Collections.emptyList());
+        skillNameResolver.update(new Skill(new Skill("Kotlin", "Kotlin programming language"), JAVA.getId()));
+
+        // then the skill resolves by its new name, and not by its old one
+        assertEquals(Map.of("kotlin", Set.of(1L)), skillNameResolver.resolve("kotlin"));
+        assertTrue(skillNameResolver.resolve("java").isEmpty());
+    }
+
+    @Test
+    public void update_SkillNamesDifferingOnlyInCase_ResolvesToBoth() {
+        // given a second skill whose name differs from Java only in case
+        skillNameResolver.update(new Skill(new Skill("JAVA", "Shouty Java"), 4L));
+
+        // then the normalised name resolves to both skills
+        assertEquals(Map.of("java", Set.of(1L, 4L)), skillNameResolver.resolve("java"));
+    }
+
+    @Test
+    public void remove_LoadedSkill_IsNoLongerResolved() {
+        // given the Spring skill is deleted
+        when(skillRepository.findAllByNormalisedNameIn(Set.of("spring"))).thenReturn(Collections.emptyList());
+        skillNameResolver.remove(SPRING);
+
+        // then its name no longer resolves
+        assertTrue(skillNameResolver.resolve("spring").isEmpty());
+    }
+}
@@ -2,21 +2,26 @@ package unit.pa.spring.springcloud.service;
 
 import com.pa.spring.springcloud.model.Skill;
 import com.pa.spring.springcloud.repository.SkillRepository;
+import com.pa.spring.springcloud.service.BatchInserter;
+import com.pa.spring.springcloud.service.BatchItemResult;
+import com.pa.spring.springcloud.service.ModificationCounter;
+import com.pa.spring.springcloud.service.SkillNameResolver;
 import com.pa.spring.springcloud.service.SkillService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static unit.pa.spring.springcloud.util.Constants.Skills.*;
@@ -25,19 +30,25 @@ import static unit.pa.spring.springcloud.util.Constants.Skills.*;
 public class SkillServiceTest {
     @Mock
     private SkillRepository skillRepository;
+    @Mock
+    private SkillNameResolver skillNameResolver;
+    @Mock
+    private BatchInserter batchInserter;
+    @Mock
+    private ModificationCounter modificationCounter;
     @InjectMocks
     private SkillService skillService;
 
     @Test
     public void findAll_WhenCalled_DelegatesToRepository() {
         // given we have a list of valid skills
-        when(skillRepository.findAll()).thenReturn(Arrays.asList(JAVA, C_SHARP, JAVASCRIPT));
+        when(skillRepository.findAllByIdGreaterThanOrderById(0L, PageRequest.of(0, 100))).thenReturn(Arrays.asList(JAVA, C_SHARP, JAVASCRIPT));
 
         // when the findAll method is called on the skill service
-        final List<Skill> serviceSkills = StreamSupport.stream(skillService.findAll().spliterator(), true).collect(Collectors.toList());
+        final List<Skill> serviceSkills = skillService.findAll(0L, 100);
 
-        // then the call is delegated to the findAll method in the skill repository
-        verify(skillRepository).findAll();
+        // then the call is delegated to the keyset query in the skill repository
+        verify(skillRepository).findAllByIdGreaterThanOrderById(0L, PageRequest.of(0, 100));
         assertEquals(3, serviceSkills.size());
         assertTrue(serviceSkills.contains(JAVA));
         assertTrue(serviceSkills.contains(C_SHARP));
@@ -78,4 +89,47 @@ public class SkillServiceTest {
         // then the call is delegated to the delete method of the skill repository
         verify(skillRepository).delete(JAVA);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void save_WhenCalled_UpdatesResolver() {
+        // given the repository returns the saved skill
+        when(skillRepository.save(JAVA)).thenReturn(JAVA);
+
+        // when the save method is called on the skill service
+        skillService.save(JAVA);
+
+        // then the saved skill's name is resolvable
+        verify(skillNameResolver).update(JAVA);
+    }
+
+    @Test
+    public void delete_WhenCalled_RemovesSkillFromResolver() {
+        // when the delete method is called on the skill service
+        skillService.delete(JAVA);
+
+        // then the deleted skill's name no longer resolves
+        verify(skillNameResolver).remove(JAVA);
+    }
+
+    @Test
+    public void save_WhenCalled_BumpsSkillTableVersion() {
+        // when the save method is called on the skill service
+        skillService.save(JAVA);
+
+        // then the skill table's version moves on, so cached skill collections are revalidated
+        verify(modificationCounter).increment(Skill.class);
+    }
+
+    @Test
+    public void saveAll_WhenCalled_DelegatesToBatchInserter() {
+        // given the batch inserter creates both skills
+        final List<BatchItemResult> results = Arrays.asList(BatchItemResult.created(0, 1L), BatchItemResult.created(1, 2L));
+        when(batchInserter.insert(eq(Arrays.asList(JAVA, C_SHARP)), any())).thenReturn(results);
+
+        // when the saveAll method is called on the skill service
+        final List<BatchItemResult> serviceResults = skillService.saveAll(Arrays.asList(JAVA, C_SHARP));
+
+        // then the outcome of each skill is returned
+        assertEquals(results, serviceResults);
+    }
+}
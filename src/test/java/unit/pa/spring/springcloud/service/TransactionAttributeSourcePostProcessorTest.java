@@ -0,0 +1,89 @@
+package unit.pa.spring.springcloud.service;
+
+import com.pa.spring.springcloud.service.TransactionAttributeSourcePostProcessor;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionAttributeSourcePostProcessorTest {
+    private TransactionAttributeSource attributeSource;
+
+    @Before
+    public void setUp() {
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition(TransactionAttributeSourcePostProcessor.BEAN_NAME,
+                new RootBeanDefinition(AnnotationTransactionAttributeSource.class));
+        new TransactionAttributeSourcePostProcessor().postProcessBeanDefinitionRegistry(beanFactory);
+        attributeSource = beanFactory.getBean(TransactionAttributeSourcePostProcessor.BEAN_NAME, TransactionAttributeSource.class);
+    }
+
+    @Test
+    public void getTransactionAttribute_NoTransactionDeclared_ReturnsNullWithoutCachingMethods() throws Exception {
+        // given a class that declares no transaction anywhere
+        // when we ask for the attribute of one of its methods
+        final TransactionAttribute attribute = attributeSource.getTransactionAttribute(
+                Plain.class.getMethod("find"), Plain.class);
+
+        // then there is none, and no method is cached
+        assertNull(attribute);
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(attributeSource, "attributeCache")).isEmpty());
+    }
+
+    @Test
+    public void getTransactionAttribute_MethodTransactional_ReturnsItsAttribute() throws Exception {
+        // given a class with a read-only transactional method
+        // when we ask for the attribute of that method
+        final TransactionAttribute attribute = attributeSource.getTransactionAttribute(
+                ReadOnly.class.getMethod("find"), ReadOnly.class);
+
+        // then it is read-only
+        assertTrue(attribute.isReadOnly());
+    }
+
+    @Test
+    public void getTransactionAttribute_InterfaceTransactional_ReturnsItsAttribute() throws Exception {
+        // given a class that implements an interface declared transactional
+        // when we ask for the attribute of the method it implements
+        final TransactionAttribute attribute = attributeSource.getTransactionAttribute(
+                Implementation.class.getMethod("find"), Implementation.class);
+
+        // then it is the interface's, read-write
+        assertNotEquals(null, attribute);
+        assertEquals(false, attribute.isReadOnly());
+    }
+
+    public static class Plain {
+        public void find() {
+        }
+    }
+
+    public static class ReadOnly {
+        @Transactional(readOnly = true)
+        public void find() {
+        }
+    }
+
+    @Transactional
+    public interface Finder {
+        void find();
+    }
+
+    public static class Implementation implements Finder {
+        @Override
+        public void find() {
+        }
+    }
+}